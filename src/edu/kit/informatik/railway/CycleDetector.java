@@ -0,0 +1,123 @@
+package edu.kit.informatik.railway;
+
+import edu.kit.informatik.util.Point;
+
+import java.util.List;
+
+/**
+ * Detects that the {@link Train trains} of a step return to an earlier state, after which they repeat the same
+ * movements forever. The state consists of the position and direction of every train on tracks. Switches cannot
+ * be set during a step and the occupancy of the tracks follows from the positions, so neither has to be part of
+ * the state.
+ *
+ * <p>States are compared by a Zobrist-style hash, the XOR of one key per train, and confirmed by comparing them
+ * exactly. Only one earlier state is kept, which is replaced at ticks that are powers of two apart (Brent's
+ * algorithm). Thus a cycle is found within a small multiple of the ticks until it starts plus its period.
+ *
+ * @author Lukas Probst
+ * @version 1.0
+ */
+class CycleDetector {
+    private long savedTick;
+    private long savedHash;
+    private Train[] savedTrains;
+    private Point[] savedPositions;
+    private Point[] savedDirections;
+    /**
+     * Number of ticks after the saved state at which the next state is saved.
+     */
+    private long power = 1;
+
+    /**
+     * Observes the state of the {@code trains} after a tick.
+     *
+     * @param tick number of ticks completed so far
+     * @param trains on tracks after the tick in the order they have been put on tracks
+     * @return the period of the cycle if the state has been observed before, otherwise 0
+     */
+    long observe(long tick, List<Train> trains) {
+        long hash = hash(trains);
+        if (savedTrains != null && hash == savedHash && matches(trains)) {
+            return tick - savedTick;
+        }
+        if (savedTrains == null || tick - savedTick == power) {
+            if (savedTrains != null) {
+                power *= 2;
+            }
+            save(tick, hash, trains);
+        }
+        return 0;
+    }
+
+    /**
+     * Computes the hash of the state of the {@code trains}.
+     *
+     * @param trains on tracks
+     * @return the XOR of the keys of all trains
+     */
+    private static long hash(List<Train> trains) {
+        long hash = 0;
+        for (Train train : trains) {
+            Point position = train.getPosition();
+            Point direction = train.getDirection();
+            long key = mix(train.getId());
+            key = mix(key ^ position.getFirstComponent());
+            key = mix(key ^ position.getSecondComponent());
+            key = mix(key ^ direction.getFirstComponent());
+            hash ^= mix(key ^ direction.getSecondComponent());
+        }
+        return hash;
+    }
+
+    /**
+     * Scrambles all bits of the given {@code value} (the finalizer of SplitMix64).
+     *
+     * @param value to be scrambled
+     * @return the scrambled value
+     */
+    private static long mix(long value) {
+        long result = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        result = (result ^ (result >>> 27)) * 0x94d049bb133111ebL;
+        return result ^ (result >>> 31);
+    }
+
+    /**
+     * Saves the state of the {@code trains}.
+     *
+     * @param tick number of ticks completed so far
+     * @param hash of the state
+     * @param trains on tracks
+     */
+    private void save(long tick, long hash, List<Train> trains) {
+        savedTick = tick;
+        savedHash = hash;
+        savedTrains = trains.toArray(new Train[0]);
+        savedPositions = new Point[savedTrains.length];
+        savedDirections = new Point[savedTrains.length];
+        for (int i = 0; i < savedTrains.length; i++) {
+            savedPositions[i] = savedTrains[i].getPosition();
+            savedDirections[i] = savedTrains[i].getDirection();
+        }
+    }
+
+    /**
+     * Compares the state of the {@code trains} with the saved state. Trains never change their order on tracks,
+     * so equal states list the same trains in the same order.
+     *
+     * @param trains on tracks
+     * @return <code>true</code> if the states are equal, otherwise <code>false</code>
+     */
+    private boolean matches(List<Train> trains) {
+        if (trains.size() != savedTrains.length) {
+            return false;
+        }
+        for (int i = 0; i < savedTrains.length; i++) {
+            Train train = trains.get(i);
+            if (train != savedTrains[i] || !train.getPosition().equals(savedPositions[i])
+                    || !train.getDirection().equals(savedDirections[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,265 @@
+package edu.kit.informatik.railway;
+
+import edu.kit.informatik.util.Point;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Maps every {@link Point} at which tracks start or end to the slots of these tracks. As no more than
+ * {@link Track#MAX_CONNECTIONS} tracks can meet at a point, both slots are kept inline in the entry.
+ *
+ * <p>The map uses open addressing with linear probing. A point is packed into a single <code>long</code>, as the
+ * coordinates of tracks are 32-bit integers, so neither a lookup nor a probe allocates any objects. Removed
+ * entries are filled by shifting back the following entries of their cluster, so there are no tombstones.
+ *
+ * @author Lukas Probst
+ * @version 1.0
+ */
+class EndpointMap {
+    /**
+     * Value of a slot field that does not refer to a track.
+     */
+    static final int NONE = -1;
+    /**
+     * Number of entries the map initially has room for, a power of two.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+    private long[] keys;
+    /**
+     * Slot of the first track at a point or {@link #NONE} if the entry is free.
+     */
+    private int[] first;
+    /**
+     * Slot of the second track at a point or {@link #NONE} if there is only one.
+     */
+    private int[] second;
+    private int size;
+
+    /**
+     * Creates a new, empty map.
+     */
+    EndpointMap() {
+        this.keys = new long[INITIAL_CAPACITY];
+        this.first = new int[INITIAL_CAPACITY];
+        this.second = new int[INITIAL_CAPACITY];
+        Arrays.fill(first, NONE);
+        Arrays.fill(second, NONE);
+    }
+
+    /**
+     * Replaces the content of this map by a copy of the {@code other} map.
+     *
+     * @param other map to be copied
+     */
+    void copyFrom(EndpointMap other) {
+        keys = other.keys.clone();
+        first = other.first.clone();
+        second = other.second.clone();
+        size = other.size;
+    }
+
+    /**
+     * Checks whether no tracks start or end at any point.
+     *
+     * @return <code>true</code> if the map is empty, otherwise <code>false</code>
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Gets the number of tracks that start or end at the {@code point}.
+     *
+     * @param point to be checked
+     * @return the number of tracks, at most {@link Track#MAX_CONNECTIONS}
+     */
+    int count(Point point) {
+        int index = indexOf(pack(point));
+        if (first[index] == NONE) {
+            return 0;
+        }
+        return second[index] == NONE ? 1 : 2;
+    }
+
+    /**
+     * Gets the slot of the first track that starts or ends at the {@code point}.
+     *
+     * @param point to be checked
+     * @return the slot of the track or {@link #NONE} if there is none
+     */
+    int getFirst(Point point) {
+        return first[indexOf(pack(point))];
+    }
+
+    /**
+     * Gets the slot of the second track that starts or ends at the {@code point}.
+     *
+     * @param point to be checked
+     * @return the slot of the track or {@link #NONE} if there is none
+     */
+    int getSecond(Point point) {
+        return second[indexOf(pack(point))];
+    }
+
+    /**
+     * Adds a track that starts or ends at the {@code point} after all tracks that are there already.
+     *
+     * @param point of the track
+     * @param slot of the track
+     */
+    void add(Point point, int slot) {
+        long key = pack(point);
+        int index = indexOf(key);
+        if (first[index] == NONE) {
+            if (2 * (size + 1) > keys.length) {
+                resize(2 * keys.length);
+                index = indexOf(key);
+            }
+            keys[index] = key;
+            first[index] = slot;
+            size++;
+        } else if (second[index] == NONE) {
+            second[index] = slot;
+        } else {
+            throw new IllegalStateException("point " + point + " is connected to more than two tracks");
+        }
+    }
+
+    /**
+     * Removes a track from the {@code point}. The point is removed as soon as no track is left there.
+     *
+     * @param point of the track
+     * @param slot of the track
+     */
+    void remove(Point point, int slot) {
+        int index = indexOf(pack(point));
+        if (second[index] == slot) {
+            second[index] = NONE;
+        } else if (first[index] == slot) {
+            first[index] = second[index];
+            second[index] = NONE;
+            if (first[index] == NONE) {
+                size--;
+                shiftBack(index);
+            }
+        }
+    }
+
+    /**
+     * Removes all tracks from the {@code point}.
+     *
+     * @param point to be cleared
+     */
+    void clear(Point point) {
+        int index = indexOf(pack(point));
+        if (first[index] != NONE) {
+            first[index] = NONE;
+            second[index] = NONE;
+            size--;
+            shiftBack(index);
+        }
+    }
+
+    /**
+     * Gets all points at which any tracks start or end, in no particular order.
+     *
+     * @return all points
+     */
+    List<Point> getPoints() {
+        List<Point> points = new ArrayList<>(size);
+        for (int i = 0; i < keys.length; i++) {
+            if (first[i] != NONE) {
+                points.add(new Point(keys[i] >> Integer.SIZE, (int) keys[i]));
+            }
+        }
+        return points;
+    }
+
+    /**
+     * Finds the index of the entry of the {@code key} or the free index where it would be inserted.
+     *
+     * @param key packed point
+     * @return the index of the entry
+     */
+    private int indexOf(long key) {
+        int mask = keys.length - 1;
+        int index = hash(key) & mask;
+        while (first[index] != NONE && keys[index] != key) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    /**
+     * Fills the freed entry at {@code free} with following entries of its cluster that would not be found
+     * otherwise.
+     *
+     * @param free index of the freed entry
+     */
+    private void shiftBack(int free) {
+        int mask = keys.length - 1;
+        int hole = free;
+        int index = (hole + 1) & mask;
+        while (first[index] != NONE) {
+            int home = hash(keys[index]) & mask;
+            // The entry may only move to the hole if the hole lies between its home and its index, cyclically
+            if (((index - home) & mask) >= ((index - hole) & mask)) {
+                keys[hole] = keys[index];
+                first[hole] = first[index];
+                second[hole] = second[index];
+                first[index] = NONE;
+                second[index] = NONE;
+                hole = index;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    /**
+     * Resizes the map to the given {@code capacity} and inserts all entries again.
+     *
+     * @param capacity power of two
+     */
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldFirst = first;
+        int[] oldSecond = second;
+        keys = new long[capacity];
+        first = new int[capacity];
+        second = new int[capacity];
+        Arrays.fill(first, NONE);
+        Arrays.fill(second, NONE);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldFirst[i] != NONE) {
+                int index = indexOf(oldKeys[i]);
+                keys[index] = oldKeys[i];
+                first[index] = oldFirst[i];
+                second[index] = oldSecond[i];
+            }
+        }
+    }
+
+    /**
+     * Packs a point into a single <code>long</code>, the X coordinate in the upper and the Y coordinate in the
+     * lower 32 bits.
+     *
+     * @param point to be packed
+     * @return the packed point
+     */
+    private static long pack(Point point) {
+        return point.getFirstComponent() << Integer.SIZE | point.getSecondComponent() & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Spreads the bits of a packed point, so neighbouring points do not end up in neighbouring entries.
+     *
+     * @param key packed point
+     * @return the hash of the key
+     */
+    private static int hash(long key) {
+        long mixed = key * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ mixed >>> Integer.SIZE);
+    }
+}
@@ -0,0 +1,213 @@
+package edu.kit.informatik.railway;
+
+import edu.kit.informatik.exception.LogicException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Journal of reversible changes of a {@link Register}. All changes made by one operation form a version, which
+ * can be undone and redone as a whole. A version only stores what has changed, so undoing or redoing it never
+ * copies the whole model and takes time proportional to the size of the change.
+ *
+ * <p>This is a journal, not a persistent data structure. Undo and redo cost the size of one version, but a
+ * checkout undoes or redoes every version between the current and the requested one, so its cost grows with the
+ * sum of the sizes of these versions. Only the last {@link #MAX_VERSIONS} versions are kept, older ones can no
+ * longer be undone or checked out.
+ *
+ * <p>Occupancy of tracks changes very often while trains move, so it is not recorded change by change. Instead,
+ * the first occupancy of every track within a version is remembered and compared with the final one on commit.
+ *
+ * @author Lukas Probst
+ * @version 1.0
+ */
+class History {
+    /**
+     * Maximum number of versions that can be undone, older ones are forgotten.
+     */
+    private static final int MAX_VERSIONS = 1000;
+    private final Deque<Version> done;
+    private final Deque<Version> undone;
+    private Version pending;
+    private final Map<Track, Train> pendingOccupancy;
+    /**
+     * Number of the oldest version that can still be checked out.
+     */
+    private int oldest;
+    /**
+     * Number of operations that have begun and not yet ended, the changes of nested operations belong to the
+     * version of the outermost one.
+     */
+    private int depth;
+
+    /**
+     * Creates a new, empty history at version 0.
+     */
+    History() {
+        this.done = new ArrayDeque<>();
+        this.undone = new ArrayDeque<>();
+        this.pending = new Version();
+        this.pendingOccupancy = new IdentityHashMap<>();
+    }
+
+    /**
+     * Records a change of the current operation.
+     *
+     * @param undo reverts the change
+     * @param redo applies the change again
+     */
+    void record(Runnable undo, Runnable redo) {
+        pending.undos.add(undo);
+        pending.redos.add(redo);
+    }
+
+    /**
+     * Records a change that encloses all other changes of the current operation. It is undone after and redone
+     * after all of them, so it may restore a state that the other changes have only partially restored.
+     *
+     * @param undo reverts the change
+     * @param redo applies the change again
+     */
+    void recordEnclosing(Runnable undo, Runnable redo) {
+        pending.undos.add(0, undo);
+        pending.redos.add(redo);
+    }
+
+    /**
+     * Begins an operation that may contain other operations. Until it ends, {@link #commit()} does nothing.
+     */
+    void begin() {
+        depth++;
+    }
+
+    /**
+     * Ends an operation begun by {@link #begin()} and commits it if it is the outermost one.
+     */
+    void end() {
+        depth--;
+        commit();
+    }
+
+    /**
+     * Sets the train that occupies the {@code track} and records the change.
+     *
+     * @param track to be occupied
+     * @param train that occupies the track or <code>null</code> if the track is free
+     */
+    void occupy(Track track, Train train) {
+        Train previous = track.getCurrentTrain();
+        if (previous != train) {
+            // The first occupancy may be null, so putIfAbsent would overwrite it
+            if (!pendingOccupancy.containsKey(track)) {
+                pendingOccupancy.put(track, previous);
+            }
+            track.setCurrentTrain(train);
+        }
+    }
+
+    /**
+     * Completes the current operation. If it has changed anything, its changes become a new version and all
+     * undone versions are discarded. Within an operation begun by {@link #begin()}, the changes are kept for
+     * the version of the outermost operation instead.
+     */
+    void commit() {
+        if (depth > 0) {
+            return;
+        }
+        Map<Track, Train> before = new IdentityHashMap<>();
+        Map<Track, Train> after = new IdentityHashMap<>();
+        pendingOccupancy.forEach((track, train) -> {
+            if (track.getCurrentTrain() != train) {
+                before.put(track, train);
+                after.put(track, track.getCurrentTrain());
+            }
+        });
+        pendingOccupancy.clear();
+        if (!before.isEmpty()) {
+            record(() -> before.forEach(Track::setCurrentTrain), () -> after.forEach(Track::setCurrentTrain));
+        }
+        if (pending.undos.isEmpty()) {
+            return;
+        }
+        done.addLast(pending);
+        pending = new Version();
+        undone.clear();
+        if (done.size() > MAX_VERSIONS) {
+            done.removeFirst();
+            oldest++;
+        }
+    }
+
+    /**
+     * Gets the number of the current version.
+     *
+     * @return the current version
+     */
+    int getVersion() {
+        return oldest + done.size();
+    }
+
+    /**
+     * Undoes the current version.
+     *
+     * @throws LogicException if there is no version to undo
+     */
+    void undo() throws LogicException {
+        if (done.isEmpty()) {
+            throw new LogicException("there is nothing to undo");
+        }
+        Version version = done.removeLast();
+        for (int i = version.undos.size() - 1; i >= 0; i--) {
+            version.undos.get(i).run();
+        }
+        undone.addLast(version);
+    }
+
+    /**
+     * Redoes the last undone version.
+     *
+     * @throws LogicException if there is no version to redo
+     */
+    void redo() throws LogicException {
+        if (undone.isEmpty()) {
+            throw new LogicException("there is nothing to redo");
+        }
+        Version version = undone.removeLast();
+        version.redos.forEach(Runnable::run);
+        done.addLast(version);
+    }
+
+    /**
+     * Undoes or redoes versions until the given {@code version} is reached, one version after another.
+     *
+     * @param version to be checked out
+     * @throws LogicException if the version does not exist or has been forgotten
+     */
+    void checkout(int version) throws LogicException {
+        if (version >= 0 && version < oldest) {
+            throw new LogicException("version " + version + " has been forgotten, only the last " + MAX_VERSIONS
+                    + " versions are kept");
+        }
+        if (version < oldest || version > getVersion() + undone.size()) {
+            throw new LogicException("version " + version + " is not available");
+        }
+        while (getVersion() > version) {
+            undo();
+        }
+        while (getVersion() < version) {
+            redo();
+        }
+    }
+
+    /**
+     * All changes of one operation.
+     */
+    private static final class Version {
+        private final List<Runnable> undos = new ArrayList<>();
+        private final List<Runnable> redos = new ArrayList<>();
+    }
+}
@@ -0,0 +1,245 @@
+package edu.kit.informatik.railway;
+
+import edu.kit.informatik.exception.LogicException;
+import edu.kit.informatik.util.Point;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Automatic interlocking that keeps {@link Train trains} apart. Every train reserves the tracks it stands on and
+ * the tracks ahead of it up to the braking horizon. A train may only move if the tracks it would stand on are not
+ * reserved by another train, otherwise it holds until they are released. Switches ahead of a train that it would
+ * pass from the wrong side are set automatically while the tracks are reserved, unless another train has reserved
+ * them.
+ *
+ * <p>Reservations are only updated for the trains that move, so a move costs as much as the tracks within the
+ * reach of the moving train.
+ *
+ * @author Lukas Probst
+ * @version 1.0
+ */
+class Interlocking {
+    private final TrainManager trainManager;
+    private final RailNetwork railNetwork;
+    /**
+     * Number of units ahead of the head of a train that it reserves.
+     */
+    private final long horizon;
+    private final Map<Track, Train> reservations;
+    private final Map<Train, List<Track>> reservedBy;
+
+    /**
+     * Creates a new interlocking and reserves the tracks of all trains that are currently on tracks.
+     *
+     * @param trainManager whose trains are interlocked
+     * @param railNetwork the trains operate on
+     * @param horizon number of units ahead of the head of a train that it reserves
+     * @param isDrivingBackwards whether the trains are driving backwards or not
+     * @throws LogicException if the tracks of a train cannot be determined
+     */
+    Interlocking(TrainManager trainManager, RailNetwork railNetwork, long horizon, boolean isDrivingBackwards)
+            throws LogicException {
+        this.trainManager = trainManager;
+        this.railNetwork = railNetwork;
+        this.horizon = horizon;
+        this.reservations = new IdentityHashMap<>();
+        this.reservedBy = new IdentityHashMap<>();
+        // The tracks trains stand on never overlap, so they are reserved before any tracks ahead
+        for (Train train : trainManager.getTrainsOnTracks()) {
+            List<Track> body = bodyOf(train, train.getPlacement());
+            body.forEach(track -> reservations.put(track, train));
+            reservedBy.put(train, body);
+        }
+        for (Train train : trainManager.getTrainsOnTracks()) {
+            reserveAhead(train, train.getPlacement(), isDrivingBackwards, reservedBy.get(train));
+        }
+    }
+
+    /**
+     * Decides which of the due {@code trains} may move and updates their reservations. Trains are handled in the
+     * given order, so if two trains need the same track, the first one gets it.
+     *
+     * @param trains that are due
+     * @param isDrivingBackwards whether the trains are driving backwards or not
+     * @return the next placements of the trains that may move
+     * @throws LogicException if the tracks of a train cannot be determined
+     */
+    Map<Train, Placement> admit(List<Train> trains, boolean isDrivingBackwards) throws LogicException {
+        Map<Train, Placement> admitted = new LinkedHashMap<>();
+        for (Train train : trains) {
+            Optional<Placement> next = trainManager.nextPlacement(train, isDrivingBackwards);
+            // A train at the end of the tracks holds instead of derailing
+            if (!next.isPresent()) {
+                continue;
+            }
+            List<Track> body = bodyOf(train, next.get());
+            if (body.stream().anyMatch(track -> reservations.getOrDefault(track, train) != train)) {
+                continue;
+            }
+            release(train);
+            body.forEach(track -> reservations.put(track, train));
+            reservedBy.put(train, body);
+            reserveAhead(train, next.get(), isDrivingBackwards, body);
+            admitted.put(train, next.get());
+        }
+        return admitted;
+    }
+
+    /**
+     * Releases all tracks reserved by the {@code train}.
+     *
+     * @param train whose reservations are released
+     */
+    void release(Train train) {
+        List<Track> tracks = reservedBy.remove(train);
+        if (tracks != null) {
+            tracks.forEach(track -> reservations.remove(track, train));
+        }
+    }
+
+    /**
+     * Gets the tracks the {@code train} would stand on at the given {@code placement}.
+     *
+     * @param train to get the tracks of
+     * @param placement of the head of the train
+     * @return the tracks of the train, not including the adjacent tracks at both ends
+     * @throws LogicException if the tracks cannot be determined
+     */
+    private List<Track> bodyOf(Train train, Placement placement) throws LogicException {
+        Track start = railNetwork.findTrack(placement.getPosition(), placement.getDirection()).get();
+        return railNetwork.getRequiredTracks(start, placement.getPosition(), placement.getDirection(),
+                train.getLength(), false);
+    }
+
+    /**
+     * Reserves the tracks ahead of the {@code train} up to the horizon or the first track reserved by another
+     * train. A train driving forwards is led by its head, a train driving backwards by the end of its body.
+     *
+     * @param train that reserves the tracks
+     * @param placement of the head of the train
+     * @param isDrivingBackwards whether the train is driving backwards or not
+     * @param reserved the tracks reserved by the train, which the tracks ahead are added to
+     */
+    private void reserveAhead(Train train, Placement placement, boolean isDrivingBackwards, List<Track> reserved) {
+        if (horizon == 0) {
+            return;
+        }
+        if (isDrivingBackwards) {
+            // The body is passed first, its tracks are reserved already
+            walk(train, placement.getPosition(), placement.getDirection().negate(), train.getLength() + horizon,
+                    reserved);
+        } else {
+            walk(train, placement.getPosition(), placement.getDirection(), horizon, reserved);
+        }
+    }
+
+    /**
+     * Walks along the tracks from {@code start} in the given direction and reserves them. The walk ends after
+     * the given {@code distance}, at a track reserved by another train, at the end of the tracks or as soon as it
+     * returns to a track it has passed before.
+     *
+     * @param train that reserves the tracks
+     * @param start point of the walk
+     * @param travel direction of the walk
+     * @param distance of the walk
+     * @param reserved the tracks reserved by the train, which the new tracks are added to
+     */
+    private void walk(Train train, Point start, Point travel, long distance, List<Track> reserved) {
+        Set<Track> passed = Collections.newSetFromMap(new IdentityHashMap<>());
+        Point position = start;
+        Point direction = travel;
+        Track current = trackAhead(position, direction);
+        long walked = 0;
+        while (walked < distance) {
+            if (current == null) {
+                current = setSwitchFor(position);
+                if (current == null) {
+                    return;
+                }
+                direction = railNetwork.getDrivingDirection(current, position).negate();
+            }
+            if (!passed.add(current) || !reserve(train, current, reserved)) {
+                return;
+            }
+            Point end;
+            try {
+                end = railNetwork.getPassedPoint(current, direction.negate());
+            } catch (LogicException e) {
+                return;
+            }
+            walked += railNetwork.distance(current, position, end);
+            current = railNetwork.getConnection(end, current).orElse(null);
+            if (current != null) {
+                direction = railNetwork.getDrivingDirection(current, end).negate();
+            }
+            position = end;
+        }
+    }
+
+    /**
+     * Reserves a single track for the {@code train}.
+     *
+     * @param train that reserves the track
+     * @param track to be reserved
+     * @param reserved the tracks reserved by the train
+     * @return <code>true</code> if the track is reserved by the train, <code>false</code> if another train has
+     *  reserved it
+     */
+    private boolean reserve(Train train, Track track, List<Track> reserved) {
+        Train owner = reservations.get(track);
+        if (owner == null) {
+            reservations.put(track, train);
+            reserved.add(track);
+        }
+        return owner == null || owner == train;
+    }
+
+    /**
+     * Finds the track that leads from {@code position} in the given {@code direction}.
+     *
+     * @param position to start at
+     * @param direction to go to
+     * @return the track or <code>null</code> if there is none
+     */
+    private Track trackAhead(Point position, Point direction) {
+        Point ahead = position.add(direction);
+        Optional<Track> track = railNetwork.findTrack(position, direction.negate());
+        return track.filter(found -> railNetwork.isPassable(found, position)
+                && railNetwork.isPassable(found, ahead)).orElse(null);
+    }
+
+    /**
+     * Sets a free switch at the given {@code point} to the point, so a train reaching the point can pass it. A
+     * switch is free if it is neither reserved nor occupied by any train. This includes the train that reaches the
+     * point, which may have set the switch the other way a moment ago.
+     *
+     * @param point where the train reaches the switch
+     * @return the switch or <code>null</code> if there is no free switch that leads to the point
+     */
+    private Track setSwitchFor(Point point) {
+        List<Track> connections = railNetwork.getTrackConnections(point);
+        if (connections == null) {
+            return null;
+        }
+        for (Track track : new ArrayList<>(connections)) {
+            if (track.isSwitch(track) && !railNetwork.isPassable(track, point)
+                    && track.getEndPoints().contains(point) && !reservations.containsKey(track)
+                    && track.getCurrentTrain() == null) {
+                try {
+                    railNetwork.setSwitch(track.getId(), point);
+                    return track;
+                } catch (LogicException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+}
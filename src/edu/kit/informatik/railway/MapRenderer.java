@@ -0,0 +1,334 @@
+package edu.kit.informatik.railway;
+
+import edu.kit.informatik.exception.LogicException;
+import edu.kit.informatik.util.Point;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Rasterises a viewport of a {@link RailNetwork} into lines of characters. Every cell of the raster covers a square
+ * of units whose edge length is a power of two, chosen as small as possible so the viewport fits into
+ * {@link #MAX_CELLS} cells in both directions. Rows are ordered from the highest to the lowest Y coordinate.
+ *
+ * <p>The tracks are rasterised tile by tile, and the rasters of the tiles are cached in least recently used order,
+ * as they only change when tracks are added or removed. A tile only rasterises the tracks that overlap it, which
+ * are found by the {@link TrackTiles spatial index} of the network. Switches are drawn with all of their
+ * endpoints, so their positions do not matter. Only the cells occupied by trains are drawn again for every
+ * viewport.
+ *
+ * @author Lukas Probst
+ * @version 1.0
+ */
+class MapRenderer {
+    /**
+     * Cell that is not touched by any track.
+     */
+    static final char EMPTY = ' ';
+    static final char HORIZONTAL = '-';
+    static final char VERTICAL = '|';
+    /**
+     * Cell with a start or an end of a track or with lines of several tracks.
+     */
+    static final char POINT = '+';
+    /**
+     * Cell with the start of a switch.
+     */
+    static final char SWITCH = 'S';
+    /**
+     * Maximum number of cells of a viewport in each direction.
+     */
+    private static final int MAX_CELLS = 128;
+    /**
+     * Binary logarithm of the number of cells of a tile in each direction.
+     */
+    private static final int TILE_SHIFT = 6;
+    private static final int TILE_CELLS = 1 << TILE_SHIFT;
+    /**
+     * Maximum number of cached tiles.
+     */
+    private static final int MAX_TILES = 256;
+    /**
+     * Mask of a tile coordinate in the key of a tile.
+     */
+    private static final long TILE_MASK = (1L << 29) - 1;
+    private final RailNetwork network;
+    /**
+     * Cached rasters of tiles by their keys, in least recently used order.
+     */
+    private final LinkedHashMap<Long, char[]> tiles;
+
+    /**
+     * Creates a new renderer of the given {@code network} without any cached tiles.
+     *
+     * @param network to be rendered
+     */
+    MapRenderer(RailNetwork network) {
+        this.network = network;
+        this.tiles = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Invalidates all cached tiles, so they are rasterised again on their next use.
+     */
+    void invalidate() {
+        tiles.clear();
+    }
+
+    /**
+     * Renders the viewport spanned by the {@code corner} and the {@code opposite} corner together with the given
+     * {@code trains}. The cells occupied by a train show the last digit of its ID.
+     *
+     * @param corner of the viewport
+     * @param opposite corner of the viewport
+     * @param trains on tracks to be drawn
+     * @return a header with the size of the raster followed by its rows from top to bottom
+     * @throws LogicException if the position of a train does not match the tracks
+     */
+    List<String> render(Point corner, Point opposite, Collection<Train> trains) throws LogicException {
+        long minX = Math.min(corner.getFirstComponent(), opposite.getFirstComponent());
+        long maxX = Math.max(corner.getFirstComponent(), opposite.getFirstComponent());
+        long minY = Math.min(corner.getSecondComponent(), opposite.getSecondComponent());
+        long maxY = Math.max(corner.getSecondComponent(), opposite.getSecondComponent());
+        int shift = 0;
+        while ((maxX >> shift) - (minX >> shift) >= MAX_CELLS || (maxY >> shift) - (minY >> shift) >= MAX_CELLS) {
+            shift++;
+        }
+        Viewport viewport = new Viewport(minX >> shift, minY >> shift, maxX >> shift, maxY >> shift, shift);
+        for (long cellY = viewport.minY; cellY <= viewport.maxY; cellY++) {
+            for (long cellX = viewport.minX; cellX <= viewport.maxX; cellX++) {
+                char[] tile = getTile(cellX >> TILE_SHIFT, cellY >> TILE_SHIFT, shift);
+                viewport.set(cellX, cellY, tile[indexInTile(cellX, cellY)]);
+            }
+        }
+        for (Train train : trains) {
+            drawTrain(train, viewport);
+        }
+        List<String> rows = new ArrayList<>(viewport.rows.length + 1);
+        rows.add("map of " + viewport.width + "x" + viewport.rows.length + " cells with an edge length of "
+                + (1L << shift));
+        for (int i = viewport.rows.length - 1; i >= 0; i--) {
+            rows.add(new String(viewport.rows[i]));
+        }
+        return rows;
+    }
+
+    /**
+     * Gets the raster of a tile, which is rasterised if it is not cached.
+     *
+     * @param tileX X coordinate of the tile
+     * @param tileY Y coordinate of the tile
+     * @param shift binary logarithm of the edge length of a cell
+     * @return the cells of the tile, row by row
+     */
+    private char[] getTile(long tileX, long tileY, int shift) {
+        Long key = (long) shift << 58 | (tileX & TILE_MASK) << 29 | tileY & TILE_MASK;
+        char[] tile = tiles.get(key);
+        if (tile == null) {
+            tile = rasterise(tileX, tileY, shift);
+            tiles.put(key, tile);
+            if (tiles.size() > MAX_TILES) {
+                Iterator<Long> eldest = tiles.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+            }
+        }
+        return tile;
+    }
+
+    /**
+     * Rasterises all tracks that overlap a tile.
+     *
+     * @param tileX X coordinate of the tile
+     * @param tileY Y coordinate of the tile
+     * @param shift binary logarithm of the edge length of a cell
+     * @return the cells of the tile, row by row
+     */
+    private char[] rasterise(long tileX, long tileY, int shift) {
+        char[] tile = new char[TILE_CELLS * TILE_CELLS];
+        Arrays.fill(tile, EMPTY);
+        long minX = tileX << TILE_SHIFT;
+        long minY = tileY << TILE_SHIFT;
+        Viewport area = new Viewport(minX, minY, minX + TILE_CELLS - 1, minY + TILE_CELLS - 1, shift);
+        // Tracks have 32-bit coordinates, so the cells are limited to them before they are converted to units
+        long fromX = Math.max(minX, (long) Integer.MIN_VALUE >> shift);
+        long fromY = Math.max(minY, (long) Integer.MIN_VALUE >> shift);
+        long toX = Math.min(minX + TILE_CELLS - 1, (long) Integer.MAX_VALUE >> shift);
+        long toY = Math.min(minY + TILE_CELLS - 1, (long) Integer.MAX_VALUE >> shift);
+        List<Track> tracks = fromX > toX || fromY > toY ? Collections.emptyList()
+                : network.getTracksWithin(fromX << shift, fromY << shift, (toX << shift) + (1L << shift) - 1,
+                (toY << shift) + (1L << shift) - 1);
+        for (Track track : tracks) {
+            Point start = track.getStartPoint();
+            for (Point end : track.getEndPoints()) {
+                char line = start.getSecondComponent() == end.getSecondComponent() ? HORIZONTAL : VERTICAL;
+                area.draw(start, end, line);
+                area.draw(end, end, POINT);
+            }
+            area.draw(start, start, track.isSwitch(track) ? SWITCH : POINT);
+        }
+        for (int row = 0; row < TILE_CELLS; row++) {
+            System.arraycopy(area.rows[row], 0, tile, row * TILE_CELLS, TILE_CELLS);
+        }
+        return tile;
+    }
+
+    /**
+     * Draws the cells occupied by a {@code train}, walking from its head along its tracks.
+     *
+     * @param train to be drawn
+     * @param viewport to draw the train into
+     * @throws LogicException if the position of the train does not match the tracks
+     */
+    private void drawTrain(Train train, Viewport viewport) throws LogicException {
+        char symbol = Character.forDigit(Math.abs(train.getId() % 10), 10);
+        network.walkBody(train, (from, to, offset) -> {
+            viewport.set(from, to, symbol);
+            return true;
+        });
+    }
+
+    /**
+     * Gets the index of a cell within its tile.
+     *
+     * @param cellX X coordinate of the cell
+     * @param cellY Y coordinate of the cell
+     * @return the index of the cell
+     */
+    private static int indexInTile(long cellX, long cellY) {
+        return (int) (cellY & (TILE_CELLS - 1)) * TILE_CELLS + (int) (cellX & (TILE_CELLS - 1));
+    }
+
+    /**
+     * Merges a character into a cell. Lines of different directions meet at a {@link #POINT}, and points take
+     * precedence over lines.
+     *
+     * @param current character of the cell
+     * @param drawn character to be drawn
+     * @return the merged character
+     */
+    private static char merge(char current, char drawn) {
+        if (current == EMPTY || current == drawn) {
+            return drawn;
+        }
+        if (drawn == SWITCH || current == SWITCH) {
+            return SWITCH;
+        }
+        return POINT;
+    }
+
+    /**
+     * Rectangle of cells with inclusive bounds in cell coordinates.
+     */
+    private static final class Viewport {
+        private final long minX;
+        private final long minY;
+        private final long maxX;
+        private final long maxY;
+        private final int shift;
+        private final int width;
+        private final char[][] rows;
+
+        /**
+         * Creates a new, empty rectangle of cells.
+         *
+         * @param minX lowest X coordinate of a cell
+         * @param minY lowest Y coordinate of a cell
+         * @param maxX highest X coordinate of a cell
+         * @param maxY highest Y coordinate of a cell
+         * @param shift binary logarithm of the edge length of a cell
+         */
+        private Viewport(long minX, long minY, long maxX, long maxY, int shift) {
+            this.minX = minX;
+            this.minY = minY;
+            this.maxX = maxX;
+            this.maxY = maxY;
+            this.shift = shift;
+            this.width = (int) (maxX - minX + 1);
+            this.rows = new char[(int) (maxY - minY + 1)][width];
+            for (char[] row : rows) {
+                Arrays.fill(row, EMPTY);
+            }
+        }
+
+        /**
+         * Sets a single cell, if it lies within the rectangle.
+         *
+         * @param cellX X coordinate of the cell
+         * @param cellY Y coordinate of the cell
+         * @param symbol to be set
+         */
+        private void set(long cellX, long cellY, char symbol) {
+            if (minX <= cellX && cellX <= maxX && minY <= cellY && cellY <= maxY) {
+                rows[(int) (cellY - minY)][(int) (cellX - minX)] = symbol;
+            }
+        }
+
+        /**
+         * Sets all cells of a horizontal or vertical line between two points, as far as they lie within the
+         * rectangle.
+         *
+         * @param from first point of the line
+         * @param to second point of the line
+         * @param symbol to be set
+         */
+        private void set(Point from, Point to, char symbol) {
+            forEachCell(from, to, (cellX, cellY) -> set(cellX, cellY, symbol));
+        }
+
+        /**
+         * Merges a symbol into all cells of a horizontal or vertical line between two points, as far as they lie
+         * within the rectangle.
+         *
+         * @param from first point of the line
+         * @param to second point of the line
+         * @param symbol to be merged
+         */
+        private void draw(Point from, Point to, char symbol) {
+            forEachCell(from, to, (cellX, cellY) -> {
+                char[] row = rows[(int) (cellY - minY)];
+                int column = (int) (cellX - minX);
+                row[column] = merge(row[column], symbol);
+            });
+        }
+
+        /**
+         * Calls the {@code action} for all cells of a horizontal or vertical line between two points that lie
+         * within the rectangle.
+         *
+         * @param from first point of the line
+         * @param to second point of the line
+         * @param action to be called with the coordinates of each cell
+         */
+        private void forEachCell(Point from, Point to, CellAction action) {
+            long fromX = Math.max(minX, Math.min(from.getFirstComponent(), to.getFirstComponent()) >> shift);
+            long toX = Math.min(maxX, Math.max(from.getFirstComponent(), to.getFirstComponent()) >> shift);
+            long fromY = Math.max(minY, Math.min(from.getSecondComponent(), to.getSecondComponent()) >> shift);
+            long toY = Math.min(maxY, Math.max(from.getSecondComponent(), to.getSecondComponent()) >> shift);
+            for (long cellY = fromY; cellY <= toY; cellY++) {
+                for (long cellX = fromX; cellX <= toX; cellX++) {
+                    action.accept(cellX, cellY);
+                }
+            }
+        }
+    }
+
+    /**
+     * Action on a single cell.
+     */
+    @FunctionalInterface
+    private interface CellAction {
+        /**
+         * Performs the action on a cell.
+         *
+         * @param cellX X coordinate of the cell
+         * @param cellY Y coordinate of the cell
+         */
+        void accept(long cellX, long cellY);
+    }
+}
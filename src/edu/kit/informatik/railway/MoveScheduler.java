@@ -0,0 +1,314 @@
+package edu.kit.informatik.railway;
+
+import edu.kit.informatik.exception.LogicException;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Moves {@link Train trains} with individual speeds. Within a tick, a train with speed v moves one unit at each of
+ * the instants 1/v, 2/v, ..., 1. The instants of all trains are taken from a priority queue in chronological order
+ * and only the trains that are due at an instant move. The trains that move at all are kept across ticks, so a tick
+ * costs as much as the moves within it and trains with speed 0 cost nothing.
+ *
+ * <p>At every instant, collisions are detected like in a tick of the {@link TrainManager}. The only difference
+ * is that trains that are not due keep their current tracks. To find them without looking at all trains, the
+ * tracks that every train requires are kept up to date.
+ *
+ * <p>With an {@link Interlocking}, only the due trains it admits move, all other due trains hold.
+ *
+ * @author Lukas Probst
+ * @version 1.0
+ */
+class MoveScheduler {
+    private final TrainManager trainManager;
+    private final RailNetwork railNetwork;
+    /**
+     * The train that requires a track by the slot of the track, not including the adjacent tracks at both ends of
+     * a train.
+     */
+    private final Train[] required;
+    /**
+     * The footprint of the tracks that every train requires.
+     */
+    private final Map<Train, BitSet> requiredBy;
+    /**
+     * The tracks that every train occupies, including the adjacent tracks at both ends.
+     */
+    private final Map<Train, List<Track>> occupied;
+    /**
+     * All trains that occupy a track, as an adjacent track may be occupied by two trains.
+     */
+    private final Map<Track, List<Train>> occupants;
+    /**
+     * The interlocking that decides which trains may move or <code>null</code> if all trains move.
+     */
+    private final Interlocking interlocking;
+    /**
+     * The trains on tracks whose speed is not 0, in the order of the trains on tracks. Speeds do not change
+     * while the scheduler is used, so a train only leaves this set when it crashes or derails.
+     */
+    private final Set<Train> moving;
+
+    /**
+     * Creates a new scheduler for the trains that are currently on tracks.
+     *
+     * @param trainManager whose trains are moved
+     * @param railNetwork the trains operate on
+     * @param interlocking that decides which trains may move or <code>null</code> if all trains move
+     * @throws LogicException if the tracks of a train cannot be determined
+     */
+    MoveScheduler(TrainManager trainManager, RailNetwork railNetwork, Interlocking interlocking)
+            throws LogicException {
+        this.trainManager = trainManager;
+        this.railNetwork = railNetwork;
+        this.interlocking = interlocking;
+        this.required = new Train[railNetwork.getSlotCount()];
+        this.requiredBy = new IdentityHashMap<>();
+        this.occupied = new IdentityHashMap<>();
+        this.occupants = new IdentityHashMap<>();
+        this.moving = new LinkedHashSet<>();
+        for (Train train : trainManager.getTrainsOnTracks()) {
+            if (train.getSpeed() > 0) {
+                moving.add(train);
+            }
+            require(train, tracksOf(train.getPlacement(), train, false));
+            List<Track> tracks = tracksOf(train.getPlacement(), train, true);
+            occupied.put(train, tracks);
+            tracks.forEach(track -> occupants.computeIfAbsent(track, x -> new ArrayList<>()).add(train));
+        }
+    }
+
+    /**
+     * Moves every train by its speed.
+     *
+     * @param isDrivingBackwards whether the trains are driving backwards or not
+     * @param crashes to add the crashes of the tick to
+     * @throws LogicException if there is a problem with moving the trains
+     */
+    void tick(boolean isDrivingBackwards, List<SortedSet<Train>> crashes) throws LogicException {
+        PriorityQueue<Move> queue = new PriorityQueue<>();
+        moving.forEach(train -> queue.add(new Move(train, 1)));
+        while (!queue.isEmpty()) {
+            List<Move> due = new ArrayList<>();
+            Move first = queue.poll();
+            due.add(first);
+            while (!queue.isEmpty() && queue.peek().compareTo(first) == 0) {
+                due.add(queue.poll());
+            }
+            // A train that has been hit by another one before its instant has left the tracks in the meantime
+            due.removeIf(move -> !isOnTracks(move.train));
+            if (due.isEmpty()) {
+                continue;
+            }
+            List<Train> trains = new ArrayList<>();
+            due.forEach(move -> trains.add(move.train));
+            move(trains, isDrivingBackwards, crashes);
+            for (Move move : due) {
+                if (move.count < move.train.getSpeed() && isOnTracks(move.train)) {
+                    queue.add(new Move(move.train, move.count + 1));
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns <code>true</code> if the {@code train} is still on tracks, i.e. it has neither crashed nor derailed.
+     *
+     * @param train to be checked
+     * @return <code>true</code> if the train is on tracks
+     */
+    private boolean isOnTracks(Train train) {
+        // Only trains on tracks occupy tracks
+        return occupied.containsKey(train) && train.getPosition() != null;
+    }
+
+    /**
+     * Moves the given {@code trains} by one unit, while all other trains stay where they are.
+     *
+     * @param trains that are due
+     * @param isDrivingBackwards whether the trains are driving backwards or not
+     * @param crashes to add the crashes of the instant to
+     * @throws LogicException if there is a problem with moving the trains
+     */
+    private void move(List<Train> trains, boolean isDrivingBackwards, List<SortedSet<Train>> crashes)
+            throws LogicException {
+        Map<Train, Placement> placements = new HashMap<>();
+        List<Train> removed = new ArrayList<>();
+        if (interlocking == null) {
+            trains.forEach(train -> trainManager.nextPlacement(train, isDrivingBackwards)
+                    .ifPresent(next -> placements.put(train, next)));
+            trains.stream().filter(train -> !placements.containsKey(train)).forEach(removed::add);
+        } else {
+            // Trains that are not admitted hold, so they keep their required tracks
+            placements.putAll(interlocking.admit(trains, isDrivingBackwards));
+        }
+        placements.keySet().forEach(this::release);
+        removed.forEach(this::release);
+        removed.forEach(Train::shorten);
+        removed.forEach(train -> placements.put(train, train.getPlacement()));
+        List<SortedSet<Train>> collided = findCollidedTrains(placements);
+        trainManager.getTrainsOnTracks().removeAll(removed);
+        removed.forEach(Train::resetLength);
+        placements.keySet().removeAll(removed);
+        removed.forEach(this::leave);
+        moving.removeAll(removed);
+        for (SortedSet<Train> trainSet : collided) {
+            placements.keySet().removeAll(trainSet);
+            trainManager.getTrainsOnTracks().removeAll(trainSet);
+            for (Train train : trainSet) {
+                release(train);
+                leave(train);
+                moving.remove(train);
+                if (interlocking != null) {
+                    interlocking.release(train);
+                }
+            }
+        }
+        if (!collided.isEmpty()) {
+            crashes.addAll(collided);
+        }
+        removed.forEach(train -> trainManager.addToSetOrAddNew(crashes, new TreeSet<>(List.of(train))));
+        for (Map.Entry<Train, Placement> entry : placements.entrySet()) {
+            Train train = entry.getKey();
+            leave(train);
+            train.setPosition(entry.getValue().getPosition());
+            train.setDirection(entry.getValue().getDirection());
+            require(train, tracksOf(train.getPlacement(), train, false));
+            enter(train, tracksOf(train.getPlacement(), train, true));
+        }
+    }
+
+    /**
+     * Finds all trains that would require the same track after the due trains have moved to their
+     * {@code placements}.
+     *
+     * @param placements of the due trains
+     * @return all collided trains
+     * @throws LogicException if there is a problem with the required tracks
+     */
+    private List<SortedSet<Train>> findCollidedTrains(Map<Train, Placement> placements) throws LogicException {
+        Occupancy occupancy = new Occupancy();
+        for (Map.Entry<Train, Placement> entry : placements.entrySet()) {
+            List<Track> tracks = tracksOf(entry.getValue(), entry.getKey(), false);
+            occupancy.add(entry.getKey(), Occupancy.footprintOf(tracks));
+            // Trains that stay where they are have already been checked against each other
+            for (Track track : tracks) {
+                Train staying = required[track.getSlot()];
+                if (staying != null) {
+                    occupancy.add(staying, requiredBy.get(staying));
+                }
+            }
+        }
+        return occupancy.findCollidedTrains(trainManager);
+    }
+
+    /**
+     * Determines the tracks of a train at the given {@code placement}.
+     *
+     * @param placement of the head of the train
+     * @param train to get the tracks of
+     * @param includeBoundaries determines whether the adjacent tracks are included or not
+     * @return the tracks of the train
+     * @throws LogicException if there is a problem with the required tracks
+     */
+    private List<Track> tracksOf(Placement placement, Train train, boolean includeBoundaries) throws LogicException {
+        Track start = railNetwork.findTrack(placement.getPosition(), placement.getDirection()).get();
+        return railNetwork.getRequiredTracks(start, placement.getPosition(), placement.getDirection(),
+                train.getLength(), includeBoundaries);
+    }
+
+    /**
+     * Marks the given {@code tracks} as required by the {@code train}.
+     *
+     * @param train that requires the tracks
+     * @param tracks to be required
+     */
+    private void require(Train train, List<Track> tracks) {
+        requiredBy.put(train, Occupancy.footprintOf(tracks));
+        tracks.forEach(track -> required[track.getSlot()] = train);
+    }
+
+    /**
+     * Removes the marks of all tracks required by the {@code train}.
+     *
+     * @param train that no longer requires its tracks
+     */
+    private void release(Train train) {
+        BitSet footprint = requiredBy.remove(train);
+        if (footprint != null) {
+            footprint.stream().filter(slot -> required[slot] == train).forEach(slot -> required[slot] = null);
+        }
+    }
+
+    /**
+     * Frees all tracks occupied by the {@code train}. A track that is still occupied by another train is passed
+     * on to it.
+     *
+     * @param train that leaves its tracks
+     */
+    private void leave(Train train) {
+        List<Track> tracks = occupied.remove(train);
+        if (tracks == null) {
+            return;
+        }
+        for (Track track : tracks) {
+            List<Train> trains = occupants.get(track);
+            trains.remove(train);
+            if (trains.isEmpty()) {
+                occupants.remove(track);
+            }
+            if (track.getCurrentTrain() == train) {
+                railNetwork.occupy(track, trains.isEmpty() ? null : trains.get(0));
+            }
+        }
+    }
+
+    /**
+     * Occupies the given {@code tracks} by the {@code train}.
+     *
+     * @param train that enters the tracks
+     * @param tracks to be occupied
+     */
+    private void enter(Train train, List<Track> tracks) {
+        occupied.put(train, tracks);
+        for (Track track : tracks) {
+            occupants.computeIfAbsent(track, x -> new ArrayList<>()).add(train);
+            railNetwork.occupy(track, train);
+        }
+    }
+
+    /**
+     * The {@code count}-th move of a train within a tick, which takes place at the instant count / speed.
+     */
+    private static final class Move implements Comparable<Move> {
+        private final Train train;
+        private final int count;
+
+        /**
+         * Creates a new move from the given arguments.
+         *
+         * @param train to be moved
+         * @param count of the move within the tick, starting at 1
+         */
+        private Move(Train train, int count) {
+            this.train = train;
+            this.count = count;
+        }
+
+        @Override
+        public int compareTo(Move move) {
+            // count / speed < move.count / move.speed without rounding, the product fits into a long
+            return Long.compare((long) count * move.train.getSpeed(), (long) move.count * train.getSpeed());
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package edu.kit.informatik.railway;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * The {@link Track tracks} required by some {@link Train trains}, kept as bit sets over the slots of the tracks.
+ * Every train has a footprint with one bit per required track. All footprints are merged into one set of occupied
+ * tracks, and the tracks required by more than one train are collected while the footprints are added. So adding
+ * a footprint only takes some word-level operations, and collisions can be found without looking at any track
+ * that is required by a single train.
+ *
+ * @author Lukas Probst
+ * @version 1.0
+ */
+class Occupancy {
+    private final BitSet occupied;
+    /**
+     * Tracks that are required by more than one train.
+     */
+    private final BitSet conflicts;
+    private final Map<Train, BitSet> footprints;
+
+    /**
+     * Creates a new occupancy without any trains.
+     */
+    Occupancy() {
+        this.occupied = new BitSet();
+        this.conflicts = new BitSet();
+        this.footprints = new LinkedHashMap<>();
+    }
+
+    /**
+     * Creates the footprint of the given {@code tracks}.
+     *
+     * @param tracks to be included
+     * @return the footprint with the bits of the slots of the tracks set
+     */
+    static BitSet footprintOf(List<Track> tracks) {
+        BitSet footprint = new BitSet();
+        tracks.forEach(track -> footprint.set(track.getSlot()));
+        return footprint;
+    }
+
+    /**
+     * Adds the {@code footprint} of a {@code train}, unless the train has been added already.
+     *
+     * @param train that requires the tracks
+     * @param footprint of the required tracks
+     */
+    void add(Train train, BitSet footprint) {
+        if (footprints.putIfAbsent(train, footprint) != null) {
+            return;
+        }
+        if (occupied.intersects(footprint)) {
+            BitSet shared = (BitSet) footprint.clone();
+            shared.and(occupied);
+            conflicts.or(shared);
+        }
+        occupied.or(footprint);
+    }
+
+    /**
+     * Finds all trains that require a track together with another train. Trains that share a track with each
+     * other are in the same set, and so are the trains of sets with a common train.
+     *
+     * @param trainManager to merge the sets with
+     * @return all collided trains
+     */
+    List<SortedSet<Train>> findCollidedTrains(TrainManager trainManager) {
+        List<SortedSet<Train>> collided = new ArrayList<>();
+        if (conflicts.isEmpty()) {
+            return collided;
+        }
+        List<Map.Entry<Train, BitSet>> involved = new ArrayList<>();
+        for (Map.Entry<Train, BitSet> entry : footprints.entrySet()) {
+            if (entry.getValue().intersects(conflicts)) {
+                involved.add(entry);
+            }
+        }
+        for (int slot = conflicts.nextSetBit(0); slot >= 0; slot = conflicts.nextSetBit(slot + 1)) {
+            TreeSet<Train> trains = new TreeSet<>();
+            for (Map.Entry<Train, BitSet> entry : involved) {
+                if (entry.getValue().get(slot)) {
+                    trains.add(entry.getKey());
+                }
+            }
+            trainManager.addToSetOrAddNew(collided, trains);
+        }
+        return collided;
+    }
+}
@@ -5,12 +5,18 @@ import edu.kit.informatik.util.Point;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.SortedSet;
 import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
 /**
@@ -21,17 +27,74 @@ import java.util.stream.Collectors;
  */
 public class RailNetwork {
     /**
-     * Stores all tracks that start or end at a given {@link Point}.
+     * Stores the slots of all tracks that start or end at a given {@link Point}.
      */
-    private final Map<Point, List<Track>> edges;
+    private final EndpointMap edges;
     private final Map<Integer, Track> tracks;
+    /**
+     * Stores the slots that are in use by a track, so every track gets the smallest free slot.
+     */
+    private final BitSet usedSlots;
+    private final TrackStore store;
+    /**
+     * Stores the IDs of all switches whose position has not been set yet.
+     */
+    private final SortedSet<Integer> unsetSwitches;
+    private final Router router;
+    private final TrackChains chains;
+    private final TrackTiles tiles;
+    private final MapRenderer renderer;
+    private final History history;
 
     /**
      * Creates a new rail network which initialises the required collections.
      */
     public RailNetwork() {
-        this.edges = new HashMap<>();
+        this(new History());
+    }
+
+    /**
+     * Creates a new rail network that records all changes in the given {@code history}.
+     *
+     * @param history to record the changes in
+     */
+    RailNetwork(History history) {
+        this.history = history;
+        this.edges = new EndpointMap();
         this.tracks = new TreeMap<>();
+        this.usedSlots = new BitSet();
+        this.store = new TrackStore();
+        this.unsetSwitches = new TreeSet<>();
+        this.router = new Router(this);
+        this.chains = new TrackChains(this);
+        this.tiles = new TrackTiles(this);
+        this.renderer = new MapRenderer(this);
+    }
+
+    /**
+     * Creates a copy of the rail network whose tracks can be changed independently. The points of the tracks
+     * are shared, only switch positions and occupancy are copied.
+     *
+     * @param history of the copy
+     * @param copies maps every train to its copy
+     * @return the copy of the rail network
+     */
+    RailNetwork fork(History history, UnaryOperator<Train> copies) {
+        RailNetwork copy = new RailNetwork(history);
+        for (Track track : tracks.values()) {
+            Track trackCopy = track.copy();
+            if (track.getCurrentTrain() != null) {
+                trackCopy.setCurrentTrain(copies.apply(track.getCurrentTrain()));
+            }
+            copy.tracks.put(trackCopy.getId(), trackCopy);
+            copy.store.put(trackCopy);
+            copy.tiles.add(trackCopy);
+        }
+        copy.usedSlots.or(usedSlots);
+        // The copies keep the slots, so the connections can be copied as they are, including their order
+        copy.edges.copyFrom(edges);
+        copy.unsetSwitches.addAll(unsetSwitches);
+        return copy;
     }
 
     /**
@@ -43,6 +106,74 @@ public class RailNetwork {
         return tracks;
     }
 
+    /**
+     * Gets all tracks that may contain the {@code point} in ascending order of their IDs, which are the tracks of
+     * the {@link TrackTiles tile} of the point.
+     *
+     * @param point to be checked
+     * @return all tracks that may contain the point
+     */
+    List<Track> getTracksNear(Point point) {
+        return tiles.getTracks(point);
+    }
+
+    /**
+     * Gets all tracks whose points span a rectangle that overlaps the given rectangle with inclusive bounds, in
+     * ascending order of their IDs, as found by the {@link TrackTiles tiles}.
+     *
+     * @param minX lowest X coordinate of the rectangle
+     * @param minY lowest Y coordinate of the rectangle
+     * @param maxX highest X coordinate of the rectangle
+     * @param maxY highest Y coordinate of the rectangle
+     * @return all tracks that overlap the rectangle
+     */
+    List<Track> getTracksWithin(long minX, long minY, long maxX, long maxY) {
+        return tiles.getTracks(minX, minY, maxX, maxY);
+    }
+
+    /**
+     * Gets the number of slots that tracks may use, which is one more than the highest slot in use.
+     *
+     * @return the number of slots
+     */
+    int getSlotCount() {
+        return usedSlots.length();
+    }
+
+    /**
+     * Puts the {@code track} into the map of all tracks and gives it the smallest free slot, unless it is in the
+     * map already.
+     *
+     * @param track to be put
+     */
+    private void putTrack(Track track) {
+        Track previous = tracks.put(track.getId(), track);
+        if (previous != track) {
+            if (previous != null) {
+                usedSlots.clear(previous.getSlot());
+                tiles.remove(previous);
+            }
+            track.setSlot(usedSlots.nextClearBit(0));
+            usedSlots.set(track.getSlot());
+            tiles.add(track);
+        }
+        store.put(track);
+    }
+
+    /**
+     * Removes the track with the given {@code trackId} from the map of all tracks and frees its slot.
+     *
+     * @param trackId of the track to be removed
+     */
+    private void removeTrackEntry(int trackId) {
+        Track removed = tracks.remove(trackId);
+        if (removed != null) {
+            usedSlots.clear(removed.getSlot());
+            store.remove(removed);
+            tiles.remove(removed);
+        }
+    }
+
     /**
      * Returns <code>true</code> if the given track is horizontal or vertical.
      *
@@ -69,7 +200,7 @@ public class RailNetwork {
      * @return <code>true</code> if the point has any connections
      */
     private boolean hasConnections(Point point) {
-        return !edges.computeIfAbsent(point, x -> new ArrayList<>()).isEmpty();
+        return edges.count(point) > 0;
     }
 
     /**
@@ -80,6 +211,22 @@ public class RailNetwork {
      *  it doesn't fit in the current rail network.
      */
     public void addTrack(Track track) throws LogicException {
+        Memento before = new Memento(track.getPoints(), Collections.singletonList(track.getId()));
+        try {
+            addTrackUnrecorded(track);
+        } finally {
+            before.recordChanges();
+        }
+    }
+
+    /**
+     * Adds a new track to the {@link RailNetwork} without recording the changes.
+     *
+     * @param track to be added
+     * @throws LogicException if the {@code track} is not valid or
+     *  it doesn't fit in the current rail network.
+     */
+    private void addTrackUnrecorded(Track track) throws LogicException {
         if (track.getEndPoints().stream().anyMatch(point -> point.equals(track.getStartPoint()))) {
             throw new LogicException("startpoint cannot be equal to an endpoint");
         }
@@ -92,14 +239,131 @@ public class RailNetwork {
             throw new LogicException("creation not possible wrong position");
         }
         // Only one other track (normal track or track switch) can be connected at any one point on a track
-        if (track.getPoints().stream()
-                .map(point -> edges.computeIfAbsent(point, x -> new ArrayList<>()))
-                .anyMatch(list -> list.size() >= Track.MAX_CONNECTIONS)) {
+        if (track.getPoints().stream().anyMatch(point -> edges.count(point) >= Track.MAX_CONNECTIONS)) {
             throw new LogicException("each point must not be connected to more than two tracks");
         }
-        edges.computeIfAbsent(track.getStartPoint(), x -> new ArrayList<>()).add(track);
-        track.getEndPoints().forEach(point -> edges.computeIfAbsent(point, x -> new ArrayList<>()).add(track));
-        this.tracks.put(track.getId(), track);
+        putTrack(track);
+        track.getPoints().forEach(point -> edges.add(point, track.getSlot()));
+        router.invalidate();
+        chains.invalidate();
+        renderer.invalidate();
+        if (track.getSwitchedTo() == null) {
+            unsetSwitches.add(track.getId());
+        }
+    }
+
+    /**
+     * Adds all given tracks to the empty {@link RailNetwork} at once. In contrast to {@link #addTrack(Track)},
+     * the whole layout is validated in one pass, so all violations are reported together.
+     *
+     * @param layout the tracks to be added
+     * @throws LogicException if the rail network is not empty or the layout contains violations
+     */
+    public void addTracks(List<Track> layout) throws LogicException {
+        if (!tracks.isEmpty()) {
+            throw new LogicException("a layout can only be loaded into an empty rail network");
+        }
+        List<String> violations = new ArrayList<>();
+        Map<Point, List<Track>> layoutEdges = new HashMap<>();
+        Map<Integer, Track> layoutTracks = new TreeMap<>();
+        // Each point refers to another point of the same component until the representative is reached
+        Map<Point, Point> components = new HashMap<>();
+        for (Track track : layout) {
+            String prefix = "track with ID " + track.getId() + ": ";
+            if (layoutTracks.put(track.getId(), track) != null) {
+                violations.add(prefix + "ID is not unique");
+            }
+            if (track.getEndPoints().contains(track.getStartPoint())) {
+                violations.add(prefix + "startpoint cannot be equal to an endpoint");
+            }
+            if (!isHorizontalOrVertical(track.getPoints())) {
+                violations.add(prefix + "creation not possible wrong position");
+            }
+            for (Point point : track.getPoints()) {
+                List<Track> connections = layoutEdges.computeIfAbsent(point, x -> new ArrayList<>());
+                if (connections.size() == Track.MAX_CONNECTIONS) {
+                    violations.add(prefix + "point " + point + " must not be connected to more than two tracks");
+                }
+                connections.add(track);
+                union(components, track.getStartPoint(), point);
+            }
+        }
+        long numberOfComponents = layoutEdges.keySet().stream()
+                .filter(point -> find(components, point).equals(point))
+                .count();
+        if (numberOfComponents > 1) {
+            violations.add("rail network is not connected, it consists of " + numberOfComponents + " parts");
+        }
+        if (!violations.isEmpty()) {
+            throw new LogicException("invalid layout with " + violations.size() + " violation(s)"
+                    + System.lineSeparator() + String.join(System.lineSeparator(), violations));
+        }
+        Memento before = new Memento(new ArrayList<>(layoutEdges.keySet()), new ArrayList<>(layoutTracks.keySet()));
+        layoutTracks.values().forEach(this::putTrack);
+        layoutEdges.forEach((point, connections) -> connections.forEach(track -> edges.add(point, track.getSlot())));
+        router.invalidate();
+        chains.invalidate();
+        renderer.invalidate();
+        layoutTracks.values().stream()
+                .filter(track -> track.getSwitchedTo() == null)
+                .forEach(track -> unsetSwitches.add(track.getId()));
+        before.recordChanges();
+    }
+
+    /**
+     * Finds the representative of the component that contains the {@code point}.
+     *
+     * @param components maps each point to another point of its component
+     * @param point to find the representative of
+     * @return the representative of the component
+     */
+    private Point find(Map<Point, Point> components, Point point) {
+        Point root = point;
+        while (components.containsKey(root) && !components.get(root).equals(root)) {
+            root = components.get(root);
+        }
+        // Path compression
+        Point current = point;
+        while (!current.equals(root)) {
+            Point next = components.get(current);
+            components.put(current, root);
+            current = next;
+        }
+        components.putIfAbsent(root, root);
+        return root;
+    }
+
+    /**
+     * Merges the components of both points.
+     *
+     * @param components maps each point to another point of its component
+     * @param first point to be merged
+     * @param second point to be merged
+     */
+    private void union(Map<Point, Point> components, Point first, Point second) {
+        Point firstRoot = find(components, first);
+        Point secondRoot = find(components, second);
+        if (!firstRoot.equals(secondRoot)) {
+            components.put(secondRoot, firstRoot);
+        }
+    }
+
+    /**
+     * Returns <code>true</code> if there is at least one switch whose position has not been set yet.
+     *
+     * @return <code>true</code> if any switch position is not set
+     */
+    public boolean hasUnsetSwitches() {
+        return !unsetSwitches.isEmpty();
+    }
+
+    /**
+     * Gets the IDs of all switches whose position has not been set yet in ascending order.
+     *
+     * @return the IDs of all unset switches
+     */
+    public SortedSet<Integer> getUnsetSwitches() {
+        return Collections.unmodifiableSortedSet(unsetSwitches);
     }
 
     /**
@@ -123,8 +387,8 @@ public class RailNetwork {
             if (points.contains(position)) {
                 return true;
             }
-            Point passed = currentTrack.getPassedPoint(direction);
-            length -= position.distanceTo(passed);
+            Point passed = getPassedPoint(currentTrack, direction);
+            length -= distance(currentTrack, position, passed);
             if (length == 0 && points.contains(passed)) {
                 return true;
             }
@@ -133,7 +397,17 @@ public class RailNetwork {
                 return false;
             }
             currentTrack = getConnection(passed, currentTrack).get();
-            direction = currentTrack.getDrivingDirection(passed);
+            direction = getDrivingDirection(currentTrack, passed);
+            TrackChains.Jump jump = length > 0 ? chains.jump(currentTrack, position, length) : null;
+            if (jump != null) {
+                if (points.stream().anyMatch(jump::passes)) {
+                    return true;
+                }
+                length -= jump.getLength();
+                position = jump.getEntry();
+                currentTrack = jump.getNext();
+                direction = getDrivingDirection(currentTrack, position);
+            }
         }
         return false;
     }
@@ -155,10 +429,15 @@ public class RailNetwork {
             throw new LogicException("removal of track with ID " + trackId + " not possible. "
                     + "This would lead to a disconnected rail network");
         }
-        tracks.remove(trackId);
-        track.getPoints().stream().filter(edges::containsKey).forEach(point -> edges.get(point).remove(track));
-        // Clear all keys of the map if all values have been removed
-        edges.entrySet().removeIf(edge -> edge.getValue().isEmpty());
+        Memento before = new Memento(track.getPoints(), Collections.singletonList(trackId));
+        // Points without any tracks left are removed from the connections as well
+        track.getPoints().forEach(point -> edges.remove(point, track.getSlot()));
+        removeTrackEntry(trackId);
+        unsetSwitches.remove(trackId);
+        router.invalidate();
+        chains.invalidate();
+        renderer.invalidate();
+        before.recordChanges();
     }
 
     /**
@@ -174,7 +453,49 @@ public class RailNetwork {
         if (!track.isSwitch(track)) {
             throw new LogicException("track with ID " + trackId + " is not a switch");
         }
+        Memento before = new Memento(Collections.emptyList(), Collections.singletonList(trackId));
         track.setSwitchedTo(point);
+        store.update(track);
+        unsetSwitches.remove(trackId);
+        before.recordChanges();
+    }
+
+    /**
+     * Sets the train that occupies the {@code track} and records the change in the history.
+     *
+     * @param track to be occupied
+     * @param train that occupies the track or <code>null</code> if the track is free
+     */
+    void occupy(Track track, Train train) {
+        history.occupy(track, train);
+    }
+
+    /**
+     * Finds the shortest route from {@code start} to {@code target}. Switch positions are treated as choices,
+     * so the route states the positions the switches on the way must be set to.
+     *
+     * @param start point on a track
+     * @param target point on a track
+     * @return the shortest route
+     * @throws LogicException if a point is not on a track or there is no route
+     */
+    public Route route(Point start, Point target) throws LogicException {
+        return router.route(start, target);
+    }
+
+    /**
+     * Renders the viewport spanned by two opposite corners as lines of characters, including the given
+     * {@code trains}.
+     *
+     * @param corner of the viewport
+     * @param opposite corner of the viewport
+     * @param trains on tracks to be drawn
+     * @return a header followed by the rows of the viewport from top to bottom
+     * @throws LogicException if the position of a train does not match the tracks
+     * @see MapRenderer
+     */
+    public List<String> renderMap(Point corner, Point opposite, Collection<Train> trains) throws LogicException {
+        return renderer.render(corner, opposite, trains);
     }
 
     /**
@@ -193,10 +514,16 @@ public class RailNetwork {
      * Gets all tracks that start or end at the given {@code point}.
      *
      * @param point to get all track connections of
-     * @return all tracks that or end at the given {@code point}
+     * @return all tracks that start or end at the given {@code point} or <code>null</code> if there are none
      */
     public List<Track> getTrackConnections(Point point) {
-        return edges.get(point);
+        int first = edges.getFirst(point);
+        if (first == EndpointMap.NONE) {
+            return null;
+        }
+        int second = edges.getSecond(point);
+        return second == EndpointMap.NONE ? Collections.singletonList(store.getTrack(first))
+                : Arrays.asList(store.getTrack(first), store.getTrack(second));
     }
 
     /**
@@ -206,9 +533,8 @@ public class RailNetwork {
      * @return <code>true</code> if the track is a bridge
      */
     private boolean isBridge(Track toRemove) {
-        Set<Point> notVisited = edges.entrySet().stream()
-                .filter(edge -> edge.getValue().stream().anyMatch(track -> !track.equals(toRemove)))
-                .map(Map.Entry::getKey)
+        Set<Point> notVisited = edges.getPoints().stream()
+                .filter(point -> getTrackConnections(point).stream().anyMatch(track -> !track.equals(toRemove)))
                 .collect(Collectors.toSet());
         if (notVisited.isEmpty()) {
             return false;
@@ -229,7 +555,7 @@ public class RailNetwork {
             return;
         }
         // Visits all points of each track
-        edges.get(next).stream()
+        getTrackConnections(next).stream()
                 // Only the tracks that should not be removed are considered
                 .filter(track -> !toRemove.equals(track))
                 // Mapping to points
@@ -241,6 +567,57 @@ public class RailNetwork {
                 .forEach(point -> visit(point, notVisited, toRemove));
     }
 
+    /**
+     * Returns <code>true</code> if the {@code track} is passable at the {@code point}. In contrast to
+     * {@link Track#isPassable(Point)}, the stored geometry of the track is used.
+     *
+     * @param track of this rail network
+     * @param point to be checked
+     * @return <code>true</code> if the track is passable at the point
+     */
+    boolean isPassable(Track track, Point point) {
+        return store.isPassable(track.getSlot(), point);
+    }
+
+    /**
+     * Gets the normalised driving direction of the {@code track} to the {@code point}, using the stored geometry
+     * of the track.
+     *
+     * @param track of this rail network
+     * @param point the start or end of the track
+     * @return the driving direction
+     * @see Track#getDrivingDirection(Point)
+     */
+    Point getDrivingDirection(Track track, Point point) {
+        return store.getDrivingDirection(track.getSlot(), point);
+    }
+
+    /**
+     * Gets the passed point of the {@code track} considering the direction in which the train is driving, using
+     * the stored geometry of the track.
+     *
+     * @param track of this rail network
+     * @param direction of the train
+     * @return the passed point
+     * @throws LogicException if the directions do not match
+     * @see Track#getPassedPoint(Point)
+     */
+    Point getPassedPoint(Track track, Point direction) throws LogicException {
+        return store.getPassedPoint(track.getSlot(), direction);
+    }
+
+    /**
+     * Gets the distance between two points on the {@code track}.
+     *
+     * @param track of this rail network
+     * @param from first point
+     * @param to second point
+     * @return the distance between the points
+     */
+    long distance(Track track, Point from, Point to) {
+        return store.distance(track.getSlot(), from, to);
+    }
+
     /**
      * Finds the track on which the given point is located.
      *
@@ -249,23 +626,33 @@ public class RailNetwork {
      * @return the track wrapped in an {@link Optional}
      */
     Optional<Track> findTrack(Point point, Point direction) {
-        if (edges.containsKey(point)) {
-            List<Track> connections = getTrackConnections(point);
-            for (Track track : connections) {
-                if (track.isPassable(point.add(direction.negate()))) {
-                    return Optional.of(track);
-                }
+        int first = edges.getFirst(point);
+        if (first != EndpointMap.NONE) {
+            int second = edges.getSecond(point);
+            int found = findPassable(first, second, point.add(direction.negate()));
+            if (found == EndpointMap.NONE) {
+                found = findPassable(first, second, point.add(direction));
             }
-            for (Track track : connections) {
-                if (track.isPassable(point.add(direction))) {
-                    return Optional.of(track);
-                }
-            }
-            return Optional.of(connections.get(0));
+            return Optional.of(store.getTrack(found == EndpointMap.NONE ? first : found));
         } else {
-            // Find point over values of edges (all tracks)
-            return tracks.values().stream().filter(track -> track.isPassable(point)).findAny();
+            // Find point over the tracks of its tile
+            return tiles.getTracks(point).stream().filter(track -> isPassable(track, point)).findAny();
+        }
+    }
+
+    /**
+     * Finds the first of two tracks that is passable at the {@code point}.
+     *
+     * @param first slot of the first track
+     * @param second slot of the second track or {@link EndpointMap#NONE}
+     * @param point to be checked
+     * @return the slot of the passable track or {@link EndpointMap#NONE} if neither track is passable
+     */
+    private int findPassable(int first, int second, Point point) {
+        if (store.isPassable(first, point)) {
+            return first;
         }
+        return second != EndpointMap.NONE && store.isPassable(second, point) ? second : EndpointMap.NONE;
     }
 
     /**
@@ -276,13 +663,72 @@ public class RailNetwork {
      * @return the connected track of {@code track} wrapped in an {@link Optional}
      */
     public Optional<Track> getConnection(Point point, Track track) {
-        if (edges.containsKey(point)) {
-            return edges.get(point).stream().filter(tr -> !tr.equals(track)
-                    && tr.isPassable(point)).findAny();
+        int first = edges.getFirst(point);
+        int second = edges.getSecond(point);
+        if (first != EndpointMap.NONE && first != track.getSlot() && store.isPassable(first, point)) {
+            return Optional.of(store.getTrack(first));
+        }
+        if (second != EndpointMap.NONE && second != track.getSlot() && store.isPassable(second, point)) {
+            return Optional.of(store.getTrack(second));
         }
         return Optional.empty();
     }
 
+    /**
+     * Walks the body of a {@code train} on tracks from its head to its tail and passes every straight part of it to
+     * the {@code visitor}, until the visitor stops the walk.
+     *
+     * @param train on tracks to be walked
+     * @param visitor of the parts of the body
+     * @throws LogicException if the position of the train does not match the tracks
+     */
+    void walkBody(Train train, BodyVisitor visitor) throws LogicException {
+        Point position = train.getPosition();
+        Point direction = train.getDirection();
+        Optional<Track> track = findTrack(position, direction);
+        long length = train.getLength();
+        long offset = 0;
+        while (track.isPresent()) {
+            Point passed = getPassedPoint(track.get(), direction);
+            long distance = Math.min(distance(track.get(), position, passed), length - offset);
+            Point end = new Point(position.getFirstComponent() - direction.getFirstComponent() * distance,
+                    position.getSecondComponent() - direction.getSecondComponent() * distance);
+            if (!visitor.visit(position, end, offset) || offset + distance >= length) {
+                return;
+            }
+            offset += distance;
+            position = passed;
+            track = getConnection(passed, track.get());
+            if (track.isPresent()) {
+                direction = getDrivingDirection(track.get(), passed);
+            }
+        }
+    }
+
+    /**
+     * Gets the offset of the {@code point} behind the head of a {@code train} on tracks.
+     *
+     * @param train on tracks
+     * @param point to be found
+     * @return the offset of the point or <code>-1</code> if the body of the train does not cover the point
+     * @throws LogicException if the position of the train does not match the tracks
+     */
+    long offsetOf(Train train, Point point) throws LogicException {
+        long[] found = {-1};
+        walkBody(train, (from, to, offset) -> {
+            boolean isOnPart = Math.min(from.getFirstComponent(), to.getFirstComponent()) <= point.getFirstComponent()
+                    && point.getFirstComponent() <= Math.max(from.getFirstComponent(), to.getFirstComponent())
+                    && Math.min(from.getSecondComponent(), to.getSecondComponent()) <= point.getSecondComponent()
+                    && point.getSecondComponent() <= Math.max(from.getSecondComponent(), to.getSecondComponent());
+            if (isOnPart) {
+                found[0] = offset + Math.abs(point.getFirstComponent() - from.getFirstComponent())
+                        + Math.abs(point.getSecondComponent() - from.getSecondComponent());
+            }
+            return !isOnPart;
+        });
+        return found[0];
+    }
+
     /**
      * Determines the required tracks of the given train using its {@code trainLength}.
      *
@@ -310,8 +756,8 @@ public class RailNetwork {
                 throw new LogicException("train cannot be positioned");
             }
             requiredTracks.add(currentTrack);
-            Point passed = currentTrack.getPassedPoint(dir);
-            length -= position.distanceTo(passed);
+            Point passed = getPassedPoint(currentTrack, dir);
+            length -= distance(currentTrack, position, passed);
             if (length > 0) {
                 position = passed;
                 // If there exists no track that ends a the point
@@ -319,7 +765,16 @@ public class RailNetwork {
                     throw new LogicException("not enough connected tracks found");
                 }
                 currentTrack = getConnection(passed, currentTrack).get();
-                dir = currentTrack.getDrivingDirection(passed);
+                dir = getDrivingDirection(currentTrack, passed);
+                // Skip all tracks of a chain that are passed completely
+                TrackChains.Jump jump = chains.jump(currentTrack, position, length);
+                if (jump != null) {
+                    requiredTracks.addAll(jump.getSkipped());
+                    length -= jump.getLength();
+                    position = jump.getEntry();
+                    currentTrack = jump.getNext();
+                    dir = getDrivingDirection(currentTrack, position);
+                }
             }
             if (length == 0) {
                 if (includeBoundaries) {
@@ -329,4 +784,99 @@ public class RailNetwork {
         }
         return requiredTracks;
     }
-}
\ No newline at end of file
+
+    /**
+     * Visitor of the straight parts of the body of a train.
+     */
+    @FunctionalInterface
+    interface BodyVisitor {
+        /**
+         * Visits a straight part of the body of a train.
+         *
+         * @param from point of the part closer to the head
+         * @param to point of the part closer to the tail
+         * @param offset of the point {@code from} behind the head of the train
+         * @return <code>true</code> to continue the walk, <code>false</code> to stop it
+         */
+        boolean visit(Point from, Point to, long offset);
+    }
+
+    /**
+     * State of the connections at some points and of some tracks, which can be restored later on.
+     */
+    private final class Memento {
+        private final List<Point> points;
+        private final List<Integer> trackIds;
+        private final List<List<Track>> connections;
+        private final List<Track> tracksById;
+        private final List<Point> switchPositions;
+        private final List<Boolean> unset;
+
+        /**
+         * Remembers the current state of the given {@code points} and {@code trackIds}.
+         *
+         * @param points to remember the connections of
+         * @param trackIds to remember the tracks and switch positions of
+         */
+        private Memento(List<Point> points, List<Integer> trackIds) {
+            this.points = points;
+            this.trackIds = trackIds;
+            this.connections = new ArrayList<>(points.size());
+            this.tracksById = new ArrayList<>(trackIds.size());
+            this.switchPositions = new ArrayList<>(trackIds.size());
+            this.unset = new ArrayList<>(trackIds.size());
+            for (Point point : points) {
+                List<Track> current = getTrackConnections(point);
+                connections.add(current == null ? null : new ArrayList<>(current));
+            }
+            for (int trackId : trackIds) {
+                Track track = tracks.get(trackId);
+                tracksById.add(track);
+                switchPositions.add(track == null ? null : track.getSwitchedTo());
+                unset.add(unsetSwitches.contains(trackId));
+            }
+        }
+
+        /**
+         * Records the changes since this memento has been created in the history, if there are any.
+         */
+        private void recordChanges() {
+            Memento after = new Memento(points, trackIds);
+            if (!connections.equals(after.connections) || !tracksById.equals(after.tracksById)
+                    || !switchPositions.equals(after.switchPositions) || !unset.equals(after.unset)) {
+                history.record(this::restore, after::restore);
+            }
+        }
+
+        /**
+         * Restores the remembered state.
+         */
+        private void restore() {
+            for (int i = 0; i < trackIds.size(); i++) {
+                Track track = tracksById.get(i);
+                if (track == null) {
+                    removeTrackEntry(trackIds.get(i));
+                } else {
+                    track.restoreSwitchedTo(switchPositions.get(i));
+                    putTrack(track);
+                }
+                if (unset.get(i)) {
+                    unsetSwitches.add(trackIds.get(i));
+                } else {
+                    unsetSwitches.remove(trackIds.get(i));
+                }
+            }
+            // Restored tracks may have got other slots, so the connections are restored afterwards
+            for (int i = 0; i < points.size(); i++) {
+                Point point = points.get(i);
+                edges.clear(point);
+                if (connections.get(i) != null) {
+                    connections.get(i).forEach(track -> edges.add(point, track.getSlot()));
+                }
+            }
+            router.invalidate();
+            chains.invalidate();
+            renderer.invalidate();
+        }
+    }
+}
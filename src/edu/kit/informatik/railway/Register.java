@@ -1,5 +1,6 @@
 package edu.kit.informatik.railway;
 
+import edu.kit.informatik.Terminal;
 import edu.kit.informatik.exception.LogicException;
 import edu.kit.informatik.rollingstock.Coach;
 import edu.kit.informatik.rollingstock.Engine;
@@ -7,13 +8,18 @@ import edu.kit.informatik.rollingstock.RollingStock;
 import edu.kit.informatik.rollingstock.TrainSet;
 import edu.kit.informatik.exception.InvalidInputException;
 import edu.kit.informatik.util.Point;
+import edu.kit.informatik.util.SymbolTable;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
 
 /**
  * Register to manage railway-related objects. The register keeps track of {@link Train trains},
@@ -29,6 +35,7 @@ public class Register {
     private final Map<Integer, Coach> coaches;
     private final List<Engine> engines;
     private final List<TrainSet> trainSets;
+    private final History history;
 
     /**
      * Creates a new register and initialises the collections and states.
@@ -38,8 +45,43 @@ public class Register {
         this.coaches = new TreeMap<>();
         this.engines = new ArrayList<>();
         this.trainSets = new ArrayList<>();
-        this.network = new RailNetwork();
-        this.trainManager = new TrainManager(network);
+        this.history = new History();
+        this.network = new RailNetwork(history);
+        this.trainManager = new TrainManager(network, new Timetable(history));
+    }
+
+    /**
+     * Creates a fork of the {@code original} register. Rolling stock and the points of all tracks are shared,
+     * as they never change. Trains, switch positions and occupancy are copied, so the fork and the original
+     * can be changed independently afterwards. The fork starts with an empty history and an empty timetable.
+     *
+     * @param original register to fork
+     */
+    private Register(Register original) {
+        this.coaches = new TreeMap<>(original.coaches);
+        this.engines = new ArrayList<>(original.engines);
+        this.trainSets = new ArrayList<>(original.trainSets);
+        this.history = new History();
+        this.trains = new TreeMap<>();
+        Map<Train, Train> copies = new IdentityHashMap<>();
+        for (Train train : original.trains.values()) {
+            Train copy = train.copy();
+            copies.put(train, copy);
+            this.trains.put(copy.getId(), copy);
+        }
+        UnaryOperator<Train> toCopy = train -> copies.computeIfAbsent(train, Train::copy);
+        this.network = original.network.fork(history, toCopy);
+        this.trainManager = original.trainManager.fork(network, toCopy, new Timetable(history));
+    }
+
+    /**
+     * Creates a fork of this register that can be changed independently. The fork must not be created while
+     * this register is changed by another thread.
+     *
+     * @return the fork
+     */
+    public Register fork() {
+        return new Register(this);
     }
 
     /**
@@ -51,6 +93,18 @@ public class Register {
         return network;
     }
 
+    /**
+     * Renders the viewport spanned by two opposite corners, including all trains on tracks.
+     *
+     * @param corner of the viewport
+     * @param opposite corner of the viewport
+     * @return a header followed by the rows of the viewport from top to bottom
+     * @throws LogicException if the position of a train does not match the tracks
+     */
+    public List<String> showMap(Point corner, Point opposite) throws LogicException {
+        return network.renderMap(corner, opposite, trainManager.getTrainsOnTracks());
+    }
+
     /*
     Track commands
      */
@@ -62,11 +116,29 @@ public class Register {
      * @throws LogicException if the {@code track} cannot be added
      */
     public void addTrack(Track track) throws LogicException {
-        network.addTrack(track);
-        for (Train train : trainManager.getTrainsOnTracks()) {
-            if (network.touchesTrack(train, track)) {
-                track.setCurrentTrain(train);
+        try {
+            network.addTrack(track);
+            for (Train train : trainManager.getTrainsOnTracks()) {
+                if (network.touchesTrack(train, track)) {
+                    network.occupy(track, train);
+                }
             }
+        } finally {
+            history.commit();
+        }
+    }
+
+    /**
+     * Loads a whole layout into the empty {@link RailNetwork} at once.
+     *
+     * @param layout the tracks to be added
+     * @throws LogicException if the rail network is not empty or the layout is not valid
+     */
+    public void loadLayout(List<Track> layout) throws LogicException {
+        try {
+            network.addTracks(layout);
+        } finally {
+            history.commit();
         }
     }
 
@@ -77,7 +149,11 @@ public class Register {
      * @throws LogicException if the track cannot be removed. For instance, it could be a bridge in the network
      */
     public void removeTrack(int trackId) throws LogicException {
-        network.removeTrack(trackId);
+        try {
+            network.removeTrack(trackId);
+        } finally {
+            history.commit();
+        }
     }
 
     /**
@@ -89,15 +165,63 @@ public class Register {
      *  For instance, if the given point is not an endpoint of the switch
      */
     public void setSwitch(int trackId, Point point) throws LogicException {
-        network.setSwitch(trackId, point);
-        Track track = network.getTracks().get(trackId);
-        trains.values().stream().filter(train -> train.touches(track)).forEach(toRemove -> {
-            toRemove.removeFromTracks();
-            network.getTracks().values().stream()
-                    .filter(tr -> tr.getCurrentTrain() == toRemove)
-                    .forEach(tr -> tr.setCurrentTrain(null));
-            trainManager.getTrainsOnTracks().remove(toRemove);
-        });
+        TrainsMemento before = new TrainsMemento(new ArrayList<>(trains.keySet()));
+        try {
+            network.setSwitch(trackId, point);
+            Track track = network.getTracks().get(trackId);
+            trains.values().stream().filter(train -> train.touches(track)).forEach(toRemove -> {
+                toRemove.removeFromTracks();
+                network.getTracks().values().stream()
+                        .filter(tr -> tr.getCurrentTrain() == toRemove)
+                        .forEach(tr -> network.occupy(tr, null));
+                trainManager.getTrainsOnTracks().remove(toRemove);
+            });
+        } finally {
+            before.recordChanges();
+            history.commit();
+        }
+    }
+
+    /*
+    History commands
+     */
+
+    /**
+     * Gets the number of the current version. Every operation that changes the register creates a new version.
+     *
+     * @return the current version
+     */
+    public int getVersion() {
+        return history.getVersion();
+    }
+
+    /**
+     * Undoes the last operation that changed the register.
+     *
+     * @throws LogicException if there is nothing to undo
+     */
+    public void undo() throws LogicException {
+        history.undo();
+    }
+
+    /**
+     * Redoes the last undone operation.
+     *
+     * @throws LogicException if there is nothing to redo
+     */
+    public void redo() throws LogicException {
+        history.redo();
+    }
+
+    /**
+     * Undoes or redoes operations until the given {@code version} is reached. This takes time proportional to
+     * the changes of all operations in between.
+     *
+     * @param version to be checked out
+     * @throws LogicException if the version is not available or has been forgotten
+     */
+    public void checkout(int version) throws LogicException {
+        history.checkout(version);
     }
 
     /*
@@ -129,13 +253,19 @@ public class Register {
      * @throws InvalidInputException if the ID already exists
      */
     public void verifyId(String series, String name) throws InvalidInputException {
+        int seriesSymbol = SymbolTable.find(series);
+        int nameSymbol = SymbolTable.find(name);
+        // No rolling stock can have the ID if its series or name has never been interned
+        if (seriesSymbol == SymbolTable.NONE || nameSymbol == SymbolTable.NONE) {
+            return;
+        }
         for (Engine engine : engines) {
-            if (engine.getSeries().equals(series) && engine.getName().equals(name)) {
+            if (engine.getSeriesSymbol() == seriesSymbol && engine.getNameSymbol() == nameSymbol) {
                 throw new InvalidInputException("engine with ID " + engine.getId() + " already exists");
             }
         }
         for (TrainSet trainSet : trainSets) {
-            if (trainSet.getSeries().equals(series) && trainSet.getName().equals(name)) {
+            if (trainSet.getSeriesSymbol() == seriesSymbol && trainSet.getNameSymbol() == nameSymbol) {
                 throw new InvalidInputException("train-set with ID " + trainSet.getId() + " already exists");
             }
         }
@@ -152,6 +282,8 @@ public class Register {
      */
     public void createEngine(Engine engine) {
         this.engines.add(engine);
+        history.record(() -> engines.remove(engine), () -> engines.add(engine));
+        history.commit();
     }
 
     /**
@@ -174,6 +306,8 @@ public class Register {
      */
     public void createCoach(Coach coach) {
         this.coaches.put(coach.getCoachId(), coach);
+        history.record(() -> coaches.remove(coach.getCoachId()), () -> coaches.put(coach.getCoachId(), coach));
+        history.commit();
     }
 
     /**
@@ -196,6 +330,8 @@ public class Register {
      */
     public void createTrainSet(TrainSet trainSet) {
         this.trainSets.add(trainSet);
+        history.record(() -> trainSets.remove(trainSet), () -> trainSets.add(trainSet));
+        history.commit();
     }
 
     /**
@@ -207,6 +343,30 @@ public class Register {
         return trainSets;
     }
 
+    /**
+     * Deletes the given {@code rollingStock}. Nothing happens if it does not exist.
+     *
+     * @param rollingStock to be deleted
+     */
+    public void deleteRollingStock(RollingStock rollingStock) {
+        int engineIndex = engines.indexOf(rollingStock);
+        int trainSetIndex = trainSets.indexOf(rollingStock);
+        if (engineIndex >= 0) {
+            engines.remove(engineIndex);
+            history.record(() -> engines.add(engineIndex, (Engine) rollingStock), () -> engines.remove(engineIndex));
+        } else if (trainSetIndex >= 0) {
+            trainSets.remove(trainSetIndex);
+            history.record(() -> trainSets.add(trainSetIndex, (TrainSet) rollingStock),
+                () -> trainSets.remove(trainSetIndex));
+        } else if (rollingStock instanceof Coach) {
+            Coach coach = (Coach) rollingStock;
+            if (coaches.remove(coach.getCoachId(), coach)) {
+                history.record(() -> coaches.put(coach.getCoachId(), coach), () -> coaches.remove(coach.getCoachId()));
+            }
+        }
+        history.commit();
+    }
+
     /*
     Train Commands
      */
@@ -220,14 +380,18 @@ public class Register {
      * @throws InvalidInputException if the rolling stock is a {@link Coach} and the ID is not a 32-bit integer
      */
     public RollingStock getRollingStock(String rollingStockId) throws LogicException, InvalidInputException {
-        if (rollingStockId.contains("-")) {
+        int separator = rollingStockId.indexOf('-');
+        if (separator >= 0) {
+            // Neither series nor names contain a dash, so the ID is split at the first one
+            int seriesSymbol = SymbolTable.find(rollingStockId.substring(0, separator));
+            int nameSymbol = SymbolTable.find(rollingStockId.substring(separator + 1));
             for (Engine engine : engines) {
-                if (engine.getId().equals(rollingStockId)) {
+                if (engine.getSeriesSymbol() == seriesSymbol && engine.getNameSymbol() == nameSymbol) {
                     return engine;
                 }
             }
             for (TrainSet trainSet : trainSets) {
-                if (trainSet.getId().equals(rollingStockId)) {
+                if (trainSet.getSeriesSymbol() == seriesSymbol && trainSet.getNameSymbol() == nameSymbol) {
                     return trainSet;
                 }
             }
@@ -264,6 +428,26 @@ public class Register {
                     + "being used in train " + getTrainWithRollingStock(rollingStock).get().getId());
         }
         int nextId = getNextId(trains.keySet());
+        TrainsMemento before = new TrainsMemento(Collections.singletonList(trainId));
+        try {
+            addRollingStock(trainId, nextId, rollingStock);
+        } finally {
+            before.recordChanges();
+            history.commit();
+        }
+    }
+
+    /**
+     * Adds the given {@code rollingStock} to the {@link Train} with the given {@code trainId} without recording
+     * the changes.
+     *
+     * @param trainId of the train
+     * @param nextId the next smallest available train ID
+     * @param rollingStock to be added
+     * @throws LogicException if the train has already been put on a track;
+     *  if the {@code trainId} does not match next smallest available ID
+     */
+    private void addRollingStock(int trainId, int nextId, RollingStock rollingStock) throws LogicException {
         if (trains.containsKey(trainId)) {
             Train train = trains.get(trainId);
             List<Train> trainsOnTrack = trainManager.getTrainsOnTracks();
@@ -289,9 +473,12 @@ public class Register {
      */
     public void removeTrain(int id) throws InvalidInputException {
         if (trains.containsKey(id)) {
+            TrainsMemento before = new TrainsMemento(Collections.singletonList(id));
             Train train = trains.get(id);
             this.trains.remove(id);
             trainManager.getTrainsOnTracks().remove(train);
+            before.recordChanges();
+            history.commit();
         } else {
             throw new InvalidInputException("train with ID " + id + " does not exist");
         }
@@ -327,19 +514,274 @@ public class Register {
     public void putTrain(int trainId, Point point, Point directionVector) throws LogicException {
         if (trains.containsKey(trainId)) {
             Train train = trains.get(trainId);
-            trainManager.putTrain(train, point, directionVector);
+            TrainsMemento before = new TrainsMemento(Collections.singletonList(trainId));
+            try {
+                trainManager.putTrain(train, point, directionVector);
+            } finally {
+                before.recordChanges();
+                history.commit();
+            }
         } else {
             throw new LogicException("train with ID " + trainId + " not existent");
         }
     }
 
+    /**
+     * Gets the rolling stock of the {@link Train} with the given {@code trainId} at the {@code offset} behind the
+     * head of the train.
+     *
+     * @param trainId of the train
+     * @param offset behind the head of the train
+     * @return the rolling stock at the offset
+     * @throws LogicException if the train is not existent or the offset is out of range
+     * @see Train#getRollingStockAt(long)
+     */
+    public RollingStock getRollingStockAt(int trainId, long offset) throws LogicException {
+        if (!trains.containsKey(trainId)) {
+            throw new LogicException("train with ID " + trainId + " not existent");
+        }
+        return trains.get(trainId).getRollingStockAt(offset);
+    }
+
+    /**
+     * Gets the offset of the {@code point} behind the head of the {@link Train} with the given {@code trainId}.
+     *
+     * @param trainId of the train
+     * @param point to be found
+     * @return the offset of the point
+     * @throws LogicException if the train is not existent, not on a track or does not cover the point
+     */
+    public long getOffset(int trainId, Point point) throws LogicException {
+        if (!trains.containsKey(trainId)) {
+            throw new LogicException("train with ID " + trainId + " not existent");
+        }
+        Train train = trains.get(trainId);
+        if (train.getPosition() == null) {
+            throw new LogicException("train with ID " + trainId + " is not on a track");
+        }
+        long offset = network.offsetOf(train, point);
+        if (offset < 0) {
+            throw new LogicException("train with ID " + trainId + " does not cover the point " + point);
+        }
+        return offset;
+    }
+
+    /**
+     * Sets the number of units the {@link Train} with the given {@code trainId} moves per tick.
+     *
+     * @param trainId of the train
+     * @param speed of the train
+     * @throws LogicException if the train is not existent or the speed is out of range
+     */
+    public void setSpeed(int trainId, int speed) throws LogicException {
+        if (!trains.containsKey(trainId)) {
+            throw new LogicException("train with ID " + trainId + " not existent");
+        }
+        if (speed < 0 || speed > Train.MAX_SPEED) {
+            throw new LogicException("the speed must be between 0 and " + Train.MAX_SPEED);
+        }
+        Train train = trains.get(trainId);
+        int previous = train.getSpeed();
+        train.setSpeed(speed);
+        if (previous != speed) {
+            history.record(() -> train.setSpeed(previous), () -> train.setSpeed(speed));
+        }
+        history.commit();
+    }
+
+    /**
+     * Turns the interlocking on or off. While it is on, every train reserves the tracks up to {@code horizon}
+     * units ahead of it, switches along the reserved tracks are set automatically and trains hold instead of
+     * crashing into each other or derailing.
+     *
+     * @param horizon number of units ahead of every train that it reserves or {@link TrainManager#NO_INTERLOCKING}
+     * @throws LogicException if the horizon is negative
+     */
+    public void setInterlocking(long horizon) throws LogicException {
+        if (horizon < 0 && horizon != TrainManager.NO_INTERLOCKING) {
+            throw new LogicException("the horizon must not be negative");
+        }
+        long previous = trainManager.getInterlockingHorizon();
+        trainManager.setInterlockingHorizon(horizon);
+        if (previous != horizon) {
+            history.record(() -> trainManager.setInterlockingHorizon(previous),
+                    () -> trainManager.setInterlockingHorizon(horizon));
+        }
+        history.commit();
+    }
+
     /**
      * Lets all trains move {@code speed}-units.
      *
      * @param speed to move all trains by
      * @throws LogicException if there is a problem with moving the trains
      */
-    public void step(short speed) throws LogicException {
-        trainManager.step(speed);
+    public void step(long speed) throws LogicException {
+        simulate(speed).format().forEach(Terminal::printLine);
+    }
+
+    /**
+     * Lets all trains move {@code speed}-units without showing anything.
+     *
+     * @param speed to move all trains by
+     * @return the crashes and the positions of the trains after moving
+     * @throws LogicException if there is a problem with moving the trains
+     */
+    public StepResult simulate(long speed) throws LogicException {
+        return simulate(speed, new StepProgress(speed));
+    }
+
+    /**
+     * Lets all trains move {@code speed}-units without showing anything while reporting the progress. If the
+     * progress is cancelled, the trains stop at the next tick and the register stays consistent, so the partial
+     * step becomes a version of its own.
+     *
+     * @param speed to move all trains by
+     * @param progress receives every completed tick and may cancel the movement
+     * @return the crashes and the positions of the trains after the last completed tick
+     * @throws LogicException if there is a problem with moving the trains
+     */
+    public StepResult simulate(long speed, StepProgress progress) throws LogicException {
+        if (!trainManager.getTimetable().isEmpty()) {
+            return simulateTimetable(speed, progress);
+        }
+        TrainsMemento before = new TrainsMemento(trainManager.getTrainsOnTracks().stream()
+                .map(Train::getId)
+                .collect(Collectors.toList()));
+        try {
+            return trainManager.simulate(speed, progress);
+        } finally {
+            before.recordChanges();
+            history.commit();
+        }
+    }
+
+    /**
+     * Lets all trains move while carrying out the actions of the timetable. The actions are operations of this
+     * register themselves, so they are nested into the step, which stays a single version. As actions may put
+     * any train on tracks, the state of all trains is remembered.
+     *
+     * @param speed to move all trains by
+     * @param progress receives every completed tick and may cancel the movement
+     * @return the actions carried out, the crashes and the positions of the trains after the last completed tick
+     * @throws LogicException if there is a problem with moving the trains
+     */
+    private StepResult simulateTimetable(long speed, StepProgress progress) throws LogicException {
+        TrainsMemento before = new TrainsMemento(new ArrayList<>(trains.keySet()));
+        history.begin();
+        try {
+            return trainManager.simulate(speed, progress);
+        } finally {
+            before.recordEnclosingChanges();
+            history.end();
+        }
+    }
+
+    /**
+     * Schedules an operation of this register for a future tick. It is carried out while the trains move,
+     * before they move on from that tick.
+     *
+     * @param tick number of ticks from now at which the operation is carried out
+     * @param description of the operation that is shown when it is carried out
+     * @param action that carries out the operation
+     * @throws LogicException if the tick is negative or too far in the future
+     */
+    public void schedule(long tick, String description, Timetable.Action action) throws LogicException {
+        if (tick < 0) {
+            throw new LogicException("the tick must not be negative");
+        }
+        try {
+            trainManager.getTimetable().schedule(tick, description, action);
+        } finally {
+            history.commit();
+        }
+    }
+
+    /**
+     * State of some trains and of the trains on tracks, which can be restored later on.
+     */
+    private final class TrainsMemento {
+        private final List<Integer> trainIds;
+        private final List<Train> trainsById;
+        private final List<List<RollingStock>> compositions;
+        private final List<Long> lengths;
+        private final List<Point> positions;
+        private final List<Point> directions;
+        private final List<Train> trainsOnTracks;
+
+        /**
+         * Remembers the current state of the trains with the given {@code trainIds}.
+         *
+         * @param trainIds of the trains to remember
+         */
+        private TrainsMemento(List<Integer> trainIds) {
+            this.trainIds = trainIds;
+            this.trainsById = new ArrayList<>(trainIds.size());
+            this.compositions = new ArrayList<>(trainIds.size());
+            this.lengths = new ArrayList<>(trainIds.size());
+            this.positions = new ArrayList<>(trainIds.size());
+            this.directions = new ArrayList<>(trainIds.size());
+            for (int trainId : trainIds) {
+                Train train = trains.get(trainId);
+                trainsById.add(train);
+                compositions.add(train == null ? null : new ArrayList<>(train.getTrain()));
+                lengths.add(train == null ? null : train.getLength());
+                positions.add(train == null ? null : train.getPosition());
+                directions.add(train == null ? null : train.getDirection());
+            }
+            this.trainsOnTracks = new ArrayList<>(trainManager.getTrainsOnTracks());
+        }
+
+        /**
+         * Records the changes since this memento has been created in the history, if there are any.
+         */
+        private void recordChanges() {
+            TrainsMemento after = new TrainsMemento(trainIds);
+            if (differsFrom(after)) {
+                history.record(this::restore, after::restore);
+            }
+        }
+
+        /**
+         * Records the changes since this memento has been created in the history, if there are any, such that
+         * they enclose all other changes of the current operation.
+         */
+        private void recordEnclosingChanges() {
+            TrainsMemento after = new TrainsMemento(trainIds);
+            if (differsFrom(after)) {
+                history.recordEnclosing(this::restore, after::restore);
+            }
+        }
+
+        /**
+         * Checks whether the {@code other} memento remembers a different state of the trains.
+         *
+         * @param other memento of the same trains
+         * @return <code>true</code> if the states differ, otherwise <code>false</code>
+         */
+        private boolean differsFrom(TrainsMemento other) {
+            return !trainsById.equals(other.trainsById) || !compositions.equals(other.compositions)
+                    || !lengths.equals(other.lengths) || !positions.equals(other.positions)
+                    || !directions.equals(other.directions) || !trainsOnTracks.equals(other.trainsOnTracks);
+        }
+
+        /**
+         * Restores the remembered state.
+         */
+        private void restore() {
+            for (int i = 0; i < trainIds.size(); i++) {
+                Train train = trainsById.get(i);
+                if (train == null) {
+                    trains.remove(trainIds.get(i));
+                } else {
+                    trains.put(trainIds.get(i), train);
+                    train.restore(compositions.get(i), lengths.get(i));
+                    train.setPosition(positions.get(i));
+                    train.setDirection(directions.get(i));
+                }
+            }
+            trainManager.getTrainsOnTracks().clear();
+            trainManager.getTrainsOnTracks().addAll(trainsOnTracks);
+        }
     }
 }
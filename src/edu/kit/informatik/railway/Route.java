@@ -0,0 +1,60 @@
+package edu.kit.informatik.railway;
+
+import edu.kit.informatik.util.Point;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedMap;
+
+/**
+ * Result of a route query in the {@link RailNetwork}: the tracks to pass, the total length and the
+ * required positions of all switches on the way.
+ *
+ * @author Lukas Probst
+ * @version 1.0
+ */
+public class Route {
+    private final List<Track> tracks;
+    private final long length;
+    private final SortedMap<Integer, Point> switchPositions;
+
+    /**
+     * Creates a new route from the given arguments.
+     *
+     * @param tracks to pass in the order they are passed
+     * @param length of the route
+     * @param switchPositions maps the ID of every switch on the way to the point it must be switched to
+     */
+    Route(List<Track> tracks, long length, SortedMap<Integer, Point> switchPositions) {
+        this.tracks = tracks;
+        this.length = length;
+        this.switchPositions = switchPositions;
+    }
+
+    /**
+     * Gets the tracks to pass in the order they are passed.
+     *
+     * @return the tracks of the route
+     */
+    public List<Track> getTracks() {
+        return Collections.unmodifiableList(tracks);
+    }
+
+    /**
+     * Gets the length of the route.
+     *
+     * @return the length of the route
+     */
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * Gets the required switch positions, sorted by the ID of the switch.
+     *
+     * @return maps the ID of every switch on the way to the point it must be switched to
+     */
+    public SortedMap<Integer, Point> getSwitchPositions() {
+        return Collections.unmodifiableSortedMap(switchPositions);
+    }
+}
@@ -0,0 +1,375 @@
+package edu.kit.informatik.railway;
+
+import edu.kit.informatik.exception.LogicException;
+import edu.kit.informatik.util.Point;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Finds shortest routes in a {@link RailNetwork} with Dijkstra's algorithm. Switch positions are treated as
+ * choices, so a route may require switches to be set. A train passing a point always continues on the other
+ * track at that point, which means it can neither turn around nor pass from one leg of a switch to the other.
+ *
+ * <p>The shortest paths from a start point to every track are kept as a routing table, so further queries
+ * from the same start point only have to look at the target. The tables must be invalidated whenever
+ * tracks are added or removed.
+ *
+ * @author Lukas Probst
+ * @version 1.0
+ */
+class Router {
+    /**
+     * Maximum number of routing tables that are cached at the same time.
+     */
+    private static final int MAX_CACHED_TABLES = 64;
+    private final RailNetwork network;
+    private final Map<Point, RoutingTable> tables;
+
+    /**
+     * Creates a new router for the given {@code network}.
+     *
+     * @param network to find the routes in
+     */
+    Router(RailNetwork network) {
+        this.network = network;
+        // Access order, so the least recently used table is removed first
+        this.tables = new LinkedHashMap<Point, RoutingTable>(16, 0.75f, true) {
+            private static final long serialVersionUID = 2906325826125227853L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Point, RoutingTable> eldest) {
+                return size() > MAX_CACHED_TABLES;
+            }
+        };
+    }
+
+    /**
+     * Invalidates all cached routing tables.
+     */
+    void invalidate() {
+        tables.clear();
+    }
+
+    /**
+     * Finds the shortest route from {@code start} to {@code target}.
+     *
+     * @param start point on a track
+     * @param target point on a track
+     * @return the shortest route
+     * @throws LogicException if a point is not on a track or there is no route
+     */
+    Route route(Point start, Point target) throws LogicException {
+        List<Leg> startLegs = legsContaining(start);
+        List<Leg> targetLegs = legsContaining(target);
+        if (startLegs.isEmpty()) {
+            throw new LogicException("point " + start + " is not on a track");
+        }
+        if (targetLegs.isEmpty()) {
+            throw new LogicException("point " + target + " is not on a track");
+        }
+        RoutingTable table = tables.get(start);
+        if (table == null) {
+            table = new RoutingTable(startLegs, start);
+            tables.put(start, table);
+        }
+        long bestLength = Long.MAX_VALUE;
+        Arrival bestArrival = null;
+        Leg bestLeg = null;
+        for (Leg leg : targetLegs) {
+            // Start and target on the same leg, so the train can drive there directly
+            if (startLegs.contains(leg) && start.distanceTo(target) < bestLength) {
+                bestLength = start.distanceTo(target);
+                bestArrival = null;
+                bestLeg = leg;
+            }
+            for (Point entry : leg.getEnds()) {
+                for (Arrival arrival : arrivalsAt(entry, leg.track)) {
+                    Long length = table.lengths.get(arrival);
+                    if (length != null && length + entry.distanceTo(target) < bestLength) {
+                        bestLength = length + entry.distanceTo(target);
+                        bestArrival = arrival;
+                        bestLeg = leg;
+                    }
+                }
+            }
+        }
+        if (bestLeg == null) {
+            throw new LogicException("there is no route from " + start + " to " + target);
+        }
+        return toRoute(table, bestArrival, bestLeg, target, bestLength);
+    }
+
+    /**
+     * Builds the route that ends on {@code lastLeg} after {@code lastArrival}.
+     *
+     * @param table of the start point
+     * @param lastArrival before entering the last leg or <code>null</code> if the route only consists of the last leg
+     * @param lastLeg that contains the target
+     * @param target of the route
+     * @param length of the route
+     * @return the route
+     * @throws LogicException if the route requires a switch to be set to two different positions
+     */
+    private Route toRoute(RoutingTable table, Arrival lastArrival, Leg lastLeg, Point target, long length)
+            throws LogicException {
+        List<Leg> legs = new ArrayList<>();
+        // The last leg is not entered at all if the target is its end
+        if (lastArrival == null || !lastArrival.point.equals(target)) {
+            legs.add(lastLeg);
+        }
+        for (Arrival arrival = lastArrival; arrival != null; arrival = table.previous.get(arrival)) {
+            // The first leg is not passed at all if the start is its end
+            if (table.previous.get(arrival) != null || table.lengths.get(arrival) > 0) {
+                legs.add(arrival.leg);
+            }
+        }
+        Collections.reverse(legs);
+        List<Track> tracks = new ArrayList<>();
+        SortedMap<Integer, Point> switchPositions = new TreeMap<>();
+        for (Leg leg : legs) {
+            tracks.add(leg.track);
+            if (leg.track.isSwitch(leg.track)) {
+                Point position = switchPositions.putIfAbsent(leg.track.getId(), leg.end);
+                if (position != null && !position.equals(leg.end)) {
+                    throw new LogicException("the shortest route requires switch " + leg.track.getId()
+                            + " to be set to two different positions");
+                }
+            }
+        }
+        return new Route(tracks, length, switchPositions);
+    }
+
+    /**
+     * Gets all legs of all tracks that contain the given {@code point}.
+     *
+     * @param point to be checked
+     * @return all legs that contain the point
+     */
+    private List<Leg> legsContaining(Point point) {
+        List<Leg> result = new ArrayList<>();
+        List<Track> connections = network.getTrackConnections(point);
+        Iterable<Track> candidates = connections != null && !connections.isEmpty()
+                ? connections : network.getTracksNear(point);
+        for (Track track : candidates) {
+            for (Point end : track.getEndPoints()) {
+                Leg leg = new Leg(track, end);
+                if (leg.contains(point)) {
+                    result.add(leg);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets all possible arrivals at {@code point} on another track than {@code excluded}.
+     *
+     * @param point to arrive at
+     * @param excluded track that the arrival must not be on
+     * @return all possible arrivals
+     */
+    private List<Arrival> arrivalsAt(Point point, Track excluded) {
+        List<Arrival> result = new ArrayList<>();
+        List<Track> connections = network.getTrackConnections(point);
+        if (connections == null) {
+            return result;
+        }
+        for (Track track : connections) {
+            if (track.equals(excluded)) {
+                continue;
+            }
+            for (Point end : track.getEndPoints()) {
+                if (point.equals(end) || point.equals(track.getStartPoint())) {
+                    result.add(new Arrival(new Leg(track, end), point));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Shortest paths from one start point to every possible arrival at the ends of all legs.
+     */
+    private final class RoutingTable {
+        private final Map<Arrival, Long> lengths = new HashMap<>();
+        private final Map<Arrival, Arrival> previous = new HashMap<>();
+
+        /**
+         * Runs Dijkstra's algorithm from the given {@code start} point.
+         *
+         * @param startLegs all legs that contain the start point
+         * @param start point
+         */
+        private RoutingTable(List<Leg> startLegs, Point start) {
+            // Outdated entries are skipped instead of removed, which would take linear time
+            PriorityQueue<Map.Entry<Arrival, Long>> queue = new PriorityQueue<>(Map.Entry.comparingByValue());
+            for (Leg leg : startLegs) {
+                for (Point end : leg.getEnds()) {
+                    update(queue, new Arrival(leg, end), start.distanceTo(end), null);
+                }
+            }
+            while (!queue.isEmpty()) {
+                Map.Entry<Arrival, Long> entry = queue.poll();
+                Arrival current = entry.getKey();
+                long length = entry.getValue();
+                if (length > lengths.get(current)) {
+                    continue;
+                }
+                for (Arrival next : arrivalsAt(current.point, current.leg.track)) {
+                    // The next arrival is at the other end of the leg that starts at the current point
+                    Point other = next.leg.getOtherEnd(current.point);
+                    update(queue, new Arrival(next.leg, other), length + next.leg.getLength(), current);
+                }
+            }
+        }
+
+        /**
+         * Stores the arrival if it is shorter than the known one.
+         *
+         * @param queue of Dijkstra's algorithm
+         * @param arrival to be stored
+         * @param length of the route to the arrival
+         * @param before the arrival before or <code>null</code> if it is the first one
+         */
+        private void update(PriorityQueue<Map.Entry<Arrival, Long>> queue, Arrival arrival, long length,
+                            Arrival before) {
+            Long known = lengths.get(arrival);
+            if (known == null || length < known) {
+                lengths.put(arrival, length);
+                previous.put(arrival, before);
+                queue.add(new AbstractMap.SimpleImmutableEntry<>(arrival, length));
+            }
+        }
+    }
+
+    /**
+     * A straight part of a track between its startpoint and one of its endpoints.
+     */
+    private static final class Leg {
+        private final Track track;
+        private final Point end;
+
+        /**
+         * Creates a new leg of {@code track} that ends at {@code end}.
+         *
+         * @param track of the leg
+         * @param end endpoint of the track
+         */
+        private Leg(Track track, Point end) {
+            this.track = track;
+            this.end = end;
+        }
+
+        /**
+         * Gets both ends of the leg.
+         *
+         * @return the startpoint of the track and the endpoint of the leg
+         */
+        private List<Point> getEnds() {
+            List<Point> ends = new ArrayList<>(2);
+            ends.add(track.getStartPoint());
+            ends.add(end);
+            return ends;
+        }
+
+        /**
+         * Gets the end of the leg that is not {@code point}.
+         *
+         * @param point one end of the leg
+         * @return the other end
+         */
+        private Point getOtherEnd(Point point) {
+            return point.equals(end) ? track.getStartPoint() : end;
+        }
+
+        /**
+         * Gets the length of the leg.
+         *
+         * @return the length
+         */
+        private long getLength() {
+            return track.getStartPoint().distanceTo(end);
+        }
+
+        /**
+         * Returns <code>true</code> if the point is located on the leg.
+         *
+         * @param point to be checked
+         * @return <code>true</code> if the point is located on the leg
+         */
+        private boolean contains(Point point) {
+            Point start = track.getStartPoint();
+            return start.getFirstComponent() == point.getFirstComponent()
+                    && point.getFirstComponent() == end.getFirstComponent()
+                    && Math.min(start.getSecondComponent(), end.getSecondComponent()) <= point.getSecondComponent()
+                    && point.getSecondComponent() <= Math.max(start.getSecondComponent(), end.getSecondComponent())
+                    || start.getSecondComponent() == point.getSecondComponent()
+                    && point.getSecondComponent() == end.getSecondComponent()
+                    && Math.min(start.getFirstComponent(), end.getFirstComponent()) <= point.getFirstComponent()
+                    && point.getFirstComponent() <= Math.max(start.getFirstComponent(), end.getFirstComponent());
+        }
+
+        @Override
+        public boolean equals(Object toCheck) {
+            if (this == toCheck) {
+                return true;
+            }
+            if (toCheck == null || getClass() != toCheck.getClass()) {
+                return false;
+            }
+            Leg other = (Leg) toCheck;
+            return track.getId() == other.track.getId() && end.equals(other.end);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(track.getId(), end);
+        }
+    }
+
+    /**
+     * Arrival at one end of a leg after passing it.
+     */
+    private static final class Arrival {
+        private final Leg leg;
+        private final Point point;
+
+        /**
+         * Creates a new arrival at {@code point} on {@code leg}.
+         *
+         * @param leg that has been passed
+         * @param point end of the leg that has been reached
+         */
+        private Arrival(Leg leg, Point point) {
+            this.leg = leg;
+            this.point = point;
+        }
+
+        @Override
+        public boolean equals(Object toCheck) {
+            if (this == toCheck) {
+                return true;
+            }
+            if (toCheck == null || getClass() != toCheck.getClass()) {
+                return false;
+            }
+            Arrival other = (Arrival) toCheck;
+            return leg.equals(other.leg) && point.equals(other.point);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(leg, point);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package edu.kit.informatik.railway;
+
+import edu.kit.informatik.exception.LogicException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs what-if scenarios in parallel. Every scenario is applied to its own {@link Register#fork() fork} of
+ * a base register, after which all trains move by the same speed. The base register stays unchanged.
+ *
+ * @author Lukas Probst
+ * @version 1.0
+ */
+public final class ScenarioSweep {
+
+    /**
+     * This helper class is not meant to be instantiated.
+     */
+    private ScenarioSweep() {
+    }
+
+    /**
+     * Changes a forked register before its trains move.
+     */
+    @FunctionalInterface
+    public interface Scenario {
+
+        /**
+         * Applies the scenario to the given {@code fork}.
+         *
+         * @param fork of the base register
+         * @throws LogicException if the scenario cannot be applied
+         */
+        void apply(Register fork) throws LogicException;
+    }
+
+    /**
+     * Runs all {@code scenarios} in parallel on as many threads as there are processors. The base register must
+     * not be changed until the sweep has finished.
+     *
+     * @param base register that every scenario is forked from
+     * @param scenarios to be run
+     * @param speed to move all trains by after applying a scenario
+     * @return one outcome per scenario in the same order
+     * @throws LogicException if the sweep has been interrupted
+     */
+    public static List<Outcome> run(Register base, List<Scenario> scenarios, long speed) throws LogicException {
+        List<Callable<Outcome>> tasks = new ArrayList<>();
+        for (Scenario scenario : scenarios) {
+            tasks.add(() -> {
+                Register fork = base.fork();
+                try {
+                    scenario.apply(fork);
+                    return new Outcome(fork.simulate(speed), null);
+                } catch (LogicException e) {
+                    return new Outcome(null, e.getMessage());
+                }
+            });
+        }
+        int threads = Math.max(1, Math.min(tasks.size(), Runtime.getRuntime().availableProcessors()));
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Outcome> result = new ArrayList<>();
+            for (Future<Outcome> future : executor.invokeAll(tasks)) {
+                result.add(future.get());
+            }
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LogicException("the sweep has been interrupted");
+        } catch (ExecutionException e) {
+            // Only unexpected exceptions get here, so they are passed on like in a single step
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Outcome of a single scenario, which is either a {@link StepResult} or an error.
+     */
+    public static final class Outcome {
+        private final StepResult result;
+        private final String error;
+
+        /**
+         * Creates a new outcome from the given arguments.
+         *
+         * @param result of moving the trains or <code>null</code> if there is an error
+         * @param error message or <code>null</code> if the trains have moved
+         */
+        private Outcome(StepResult result, String error) {
+            this.result = result;
+            this.error = error;
+        }
+
+        /**
+         * Gets the result of moving the trains.
+         *
+         * @return the result or <code>null</code> if the scenario has failed
+         */
+        public StepResult getResult() {
+            return result;
+        }
+
+        /**
+         * Gets the error message of the scenario.
+         *
+         * @return the error message or <code>null</code> if the scenario has not failed
+         */
+        public String getError() {
+            return error;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package edu.kit.informatik.railway;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder event for one phase of a single unit step of the {@link TrainManager}.
+ *
+ * @author Lukas Probst
+ * @version 1.0
+ */
+@Name("edu.kit.informatik.StepPhase")
+@Label("Step Phase")
+@Category({"Railway", "Simulation"})
+@Description("One phase of a unit step of all trains")
+class StepPhaseEvent extends Event {
+    /**
+     * Phase that computes the next placement of every train.
+     */
+    static final String NEXT_PLACEMENTS = "nextPlacements";
+    /**
+     * Phase that finds trains sharing a track.
+     */
+    static final String FIND_COLLIDED_TRAINS = "findCollidedTrains";
+    /**
+     * Phase that removes crashed trains.
+     */
+    static final String HANDLE_COLLISIONS = "handleCollisions";
+    /**
+     * Phase that clears the occupancy of all tracks.
+     */
+    static final String CLEAR_OCCUPANCY = "clearOccupancy";
+    /**
+     * Phase that moves the remaining trains and occupies their tracks.
+     */
+    static final String MOVE_TRAINS = "moveTrains";
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Train Count")
+    @Description("Number of trains on tracks at the beginning of the phase")
+    int trainCount;
+
+    @Label("Tracks Visited")
+    @Description("Number of tracks visited during the phase")
+    long tracksVisited;
+
+    @Label("Crash Count")
+    @Description("Number of crashes of the unit step known at the end of the phase")
+    int crashCount;
+
+    /**
+     * Start of the phase for the {@link edu.kit.informatik.util.Tracer}, not recorded by the flight recorder.
+     */
+    transient long traceStart;
+
+    /**
+     * Creates a new event for the given {@code phase}.
+     *
+     * @param phase of the unit step
+     * @param trainCount number of trains on tracks at the beginning of the phase
+     */
+    StepPhaseEvent(String phase, int trainCount) {
+        this.phase = phase;
+        this.trainCount = trainCount;
+    }
+}
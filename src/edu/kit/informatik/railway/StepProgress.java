@@ -0,0 +1,79 @@
+package edu.kit.informatik.railway;
+
+/**
+ * Progress of a step that may run on another thread. The step reports every completed tick, i.e. every time all
+ * trains have moved one unit, and checks for cancellation before starting the next one. Thus a cancelled step
+ * always stops at a tick boundary where all trains and tracks are consistent.
+ *
+ * @author Lukas Probst
+ * @version 1.0
+ */
+public class StepProgress {
+    private final long totalTicks;
+    private volatile long ticks;
+    private volatile int crashes;
+    private volatile boolean cancelled;
+
+    /**
+     * Creates a new progress of a step with the given speed.
+     *
+     * @param speed of the step, whose absolute value is the number of ticks and must not overflow
+     */
+    public StepProgress(long speed) {
+        this.totalTicks = Math.abs(speed);
+    }
+
+    /**
+     * Reports a completed tick.
+     *
+     * @param ticks completed so far
+     * @param crashes so far
+     */
+    void update(long ticks, int crashes) {
+        this.crashes = crashes;
+        this.ticks = ticks;
+    }
+
+    /**
+     * Requests the step to stop before its next tick.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Checks whether the step has been requested to stop.
+     *
+     * @return <code>true</code> if the step has been cancelled, otherwise <code>false</code>
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Gets the number of ticks completed so far.
+     *
+     * @return the completed ticks
+     */
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Gets the number of ticks the step consists of.
+     *
+     * @return the total number of ticks
+     */
+    public long getTotalTicks() {
+        return totalTicks;
+    }
+
+    /**
+     * Gets the number of crashes so far.
+     *
+     * @return the crashes so far
+     */
+    public int getCrashes() {
+        return crashes;
+    }
+}
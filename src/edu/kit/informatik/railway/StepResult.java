@@ -0,0 +1,83 @@
+package edu.kit.informatik.railway;
+
+import edu.kit.informatik.userinterface.InOutput;
+import edu.kit.informatik.util.Point;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Result of letting all {@link Train trains} move, consisting of the actions of the {@link Timetable} carried out
+ * meanwhile, the crashes and the positions of all trains that are still on tracks afterwards.
+ *
+ * @author Lukas Probst
+ * @version 1.0
+ */
+public class StepResult {
+    private final List<String> events;
+    private final List<List<Integer>> crashes;
+    private final Map<Integer, Point> positions;
+
+    /**
+     * Creates a new step result from the given arguments.
+     *
+     * @param events one line per action of the timetable carried out during the step
+     * @param crashes the IDs of the crashed trains, one sorted list per crash
+     * @param positions of all trains on tracks after the step in the order they have been put on tracks
+     */
+    StepResult(List<String> events, List<List<Integer>> crashes, Map<Integer, Point> positions) {
+        this.events = Collections.unmodifiableList(events);
+        this.crashes = Collections.unmodifiableList(crashes);
+        this.positions = Collections.unmodifiableMap(positions);
+    }
+
+    /**
+     * Gets one line per action of the timetable carried out during the step.
+     *
+     * @return the actions carried out
+     */
+    public List<String> getEvents() {
+        return events;
+    }
+
+    /**
+     * Gets the IDs of the crashed trains, one sorted list per crash ordered by the smallest ID.
+     *
+     * @return the crashes
+     */
+    public List<List<Integer>> getCrashes() {
+        return crashes;
+    }
+
+    /**
+     * Gets the positions of all trains that are still on tracks by their ID.
+     *
+     * @return the positions of the trains
+     */
+    public Map<Integer, Point> getPositions() {
+        return positions;
+    }
+
+    /**
+     * Formats the result as it is shown to the user.
+     *
+     * @return one line per action of the timetable, followed by one line of the format
+     *  <b>Crash of train [trainIDs]</b> per crash and one line of the format <b>Train [trainID] at [position]</b>
+     *  per train, or {@link InOutput#OK_MESSAGE} if there is nothing to show because there were no trains
+     */
+    public List<String> format() {
+        List<String> result = new ArrayList<>(events);
+        for (List<Integer> crash : crashes) {
+            result.add("Crash of train " + crash.stream().map(Object::toString).collect(Collectors.joining(",")));
+        }
+        positions.forEach((id, position) -> result.add("Train " + id + " at " + position));
+        // Trains only leave the tracks by crashing, so there is nothing to show only if there were no trains
+        if (result.isEmpty()) {
+            result.add(InOutput.OK_MESSAGE);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,214 @@
+package edu.kit.informatik.railway;
+
+import edu.kit.informatik.exception.LogicException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Changes of a {@link Register} that are scheduled for future ticks and carried out while the trains move. The
+ * timetable has a clock that advances with every tick of a step as long as there are scheduled changes.
+ *
+ * <p>The changes are kept in a hashed timing wheel: a change due at tick t is kept in slot t modulo the number of
+ * slots, so scheduling a change and finding the changes due at a tick takes constant time as long as the slots
+ * are short. A slot may also contain changes that are due a multiple of the number of slots later.
+ *
+ * @author Lukas Probst
+ * @version 1.0
+ */
+public class Timetable {
+    /**
+     * Number of slots of the wheel, a power of two.
+     */
+    private static final int SLOTS = 256;
+    private final History history;
+    private final List<List<Entry>> wheel;
+    /**
+     * Number of ticks passed since the timetable has been created, while changes have been scheduled.
+     */
+    private long now;
+    private int size;
+
+    /**
+     * Creates a new, empty timetable whose changes are recorded in the given {@code history}.
+     *
+     * @param history to record changes of the timetable in
+     */
+    Timetable(History history) {
+        this.history = history;
+        this.wheel = new ArrayList<>(SLOTS);
+        for (int i = 0; i < SLOTS; i++) {
+            wheel.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * A change of the register.
+     */
+    @FunctionalInterface
+    public interface Action {
+
+        /**
+         * Carries out the change.
+         *
+         * @throws LogicException if the change cannot be carried out
+         */
+        void apply() throws LogicException;
+    }
+
+    /**
+     * Schedules the {@code action} to be carried out after {@code delay} more ticks. Actions due at the same tick
+     * are carried out in the order they have been scheduled.
+     *
+     * @param delay number of ticks from now, at least 0
+     * @param description of the action that is shown when it is carried out
+     * @param action to be carried out
+     * @throws LogicException if the tick is too far in the future
+     */
+    void schedule(long delay, String description, Action action) throws LogicException {
+        if (delay > Long.MAX_VALUE - now) {
+            throw new LogicException("tick " + delay + " is too far in the future");
+        }
+        Entry entry = new Entry(now + delay, description, action);
+        List<Entry> slot = wheel.get(slotOf(entry.tick));
+        slot.add(entry);
+        size++;
+        history.record(() -> {
+            slot.remove(slot.size() - 1);
+            size--;
+        }, () -> {
+            slot.add(entry);
+            size++;
+        });
+    }
+
+    /**
+     * Checks whether any actions are scheduled.
+     *
+     * @return <code>true</code> if no actions are scheduled, otherwise <code>false</code>
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Gets the number of ticks until the next action is due. Only needed when ticks are skipped, so all slots are
+     * searched.
+     *
+     * @return the number of ticks until the next action or {@link Long#MAX_VALUE} if there is none
+     */
+    long untilNext() {
+        long next = Long.MAX_VALUE;
+        for (List<Entry> slot : wheel) {
+            for (Entry entry : slot) {
+                next = Math.min(next, entry.tick - now);
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Advances the clock without recording it in the history, which is done by {@link #recordAdvance(long)}.
+     *
+     * @param ticks to advance the clock by
+     */
+    void advance(long ticks) {
+        now += ticks;
+    }
+
+    /**
+     * Records that the clock has advanced since it showed the given time.
+     *
+     * @param from time of the clock before it has advanced
+     */
+    void recordAdvance(long from) {
+        long to = now;
+        if (from != to) {
+            history.record(() -> now = from, () -> now = to);
+        }
+    }
+
+    /**
+     * Gets the time of the clock.
+     *
+     * @return the number of ticks passed while actions have been scheduled
+     */
+    long getNow() {
+        return now;
+    }
+
+    /**
+     * Carries out and removes all actions that are due now.
+     *
+     * @param tick number of ticks of the current step completed so far, to be shown with every action
+     * @param events to add one line per action to, which states whether it has been carried out
+     * @return <code>true</code> if any action has been carried out, otherwise <code>false</code>
+     */
+    boolean fire(long tick, List<String> events) {
+        List<Entry> slot = wheel.get(slotOf(now));
+        List<Entry> due = new ArrayList<>();
+        List<Entry> remaining = new ArrayList<>();
+        for (Entry entry : slot) {
+            (entry.tick == now ? due : remaining).add(entry);
+        }
+        if (due.isEmpty()) {
+            return false;
+        }
+        List<Entry> before = new ArrayList<>(slot);
+        setSlot(slot, remaining);
+        history.record(() -> setSlot(slot, before), () -> setSlot(slot, remaining));
+        for (Entry entry : due) {
+            try {
+                entry.action.apply();
+                events.add("Tick " + tick + ": " + entry.description);
+            } catch (LogicException e) {
+                events.add("Tick " + tick + ": " + entry.description + " failed, " + e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Replaces the content of a slot.
+     *
+     * @param slot to be changed
+     * @param entries of the slot
+     */
+    private void setSlot(List<Entry> slot, List<Entry> entries) {
+        size += entries.size() - slot.size();
+        slot.clear();
+        slot.addAll(entries);
+    }
+
+    /**
+     * Gets the index of the slot for the given {@code tick}.
+     *
+     * @param tick to get the slot of
+     * @return the index of the slot
+     */
+    private static int slotOf(long tick) {
+        return (int) (tick & (SLOTS - 1));
+    }
+
+    /**
+     * An action that is due at a tick.
+     */
+    private static final class Entry {
+        private final long tick;
+        private final String description;
+        private final Action action;
+
+        /**
+         * Creates a new entry from the given arguments.
+         *
+         * @param tick at which the action is due
+         * @param description of the action
+         * @param action to be carried out
+         */
+        private Entry(long tick, String description, Action action) {
+            this.tick = tick;
+            this.description = description;
+            this.action = action;
+        }
+    }
+}
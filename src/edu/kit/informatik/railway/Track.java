@@ -20,6 +20,10 @@ public class Track {
     public static final int MAX_CONNECTIONS = 2;
     private final int id;
     private final List<Point> points;
+    /**
+     * Dense index of the track within its {@link RailNetwork}, used as bit index of track sets.
+     */
+    private int slot;
     private Point switchedTo;
     private Train currentTrain;
 
@@ -38,6 +42,37 @@ public class Track {
         this.points = points;
     }
 
+    /**
+     * Creates a copy of the track with the same ID, points and switch position, but without a current train.
+     * The points are shared, as they never change.
+     *
+     * @return the copy of the track
+     */
+    Track copy() {
+        Track copy = new Track(id, points);
+        copy.switchedTo = switchedTo;
+        copy.slot = slot;
+        return copy;
+    }
+
+    /**
+     * Gets the dense index of the track within its {@link RailNetwork}.
+     *
+     * @return the index of the track
+     */
+    int getSlot() {
+        return slot;
+    }
+
+    /**
+     * Sets the dense index of the track within its {@link RailNetwork}.
+     *
+     * @param slot index of the track
+     */
+    void setSlot(int slot) {
+        this.slot = slot;
+    }
+
     /**
      * Returns <code>true</code> if this track is a switch.
      *
@@ -62,6 +97,15 @@ public class Track {
         switchedTo = this.points.get(pointIndex);
     }
 
+    /**
+     * Restores a previous position of the switch without any checks.
+     *
+     * @param point the switch has been switched to or <code>null</code> if its position has not been set
+     */
+    void restoreSwitchedTo(Point point) {
+        switchedTo = point;
+    }
+
     /**
      * Gets the ID of the track.
      *
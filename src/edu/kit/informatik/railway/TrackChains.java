@@ -0,0 +1,311 @@
+package edu.kit.informatik.railway;
+
+import edu.kit.informatik.util.Point;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compressed view of a {@link RailNetwork} that consists of maximal chains of normal tracks. Two tracks of
+ * a chain meet at a point that no other track touches, so a train passing such a point always continues on
+ * the next track of the chain. Together with the cumulative lengths of the tracks, this allows to skip
+ * whole parts of a chain with a binary search instead of walking it track by track.
+ *
+ * <p>The chains are built lazily and must be invalidated whenever tracks are added or removed.
+ * Switch positions do not matter, as switches are never part of a chain.
+ *
+ * @author Lukas Probst
+ * @version 1.0
+ */
+class TrackChains {
+    private final RailNetwork network;
+    private final Map<Track, Chain> chains;
+    private boolean isBuilt;
+
+    /**
+     * Creates new, not yet built track chains of the given {@code network}.
+     *
+     * @param network to build the chains of
+     */
+    TrackChains(RailNetwork network) {
+        this.network = network;
+        this.chains = new IdentityHashMap<>();
+    }
+
+    /**
+     * Invalidates all chains, so they are built again on the next jump.
+     */
+    void invalidate() {
+        chains.clear();
+        isBuilt = false;
+    }
+
+    /**
+     * Skips all tracks of the chain of {@code track} that are entered at {@code entry} and can be passed
+     * completely with less than {@code length} units. The last track of a chain is never skipped, so the
+     * caller can handle leaving the chain.
+     *
+     * @param track that is entered at {@code entry}
+     * @param entry end of the {@code track}
+     * @param length that remains to be passed
+     * @return the jump or <code>null</code> if there is no track to skip
+     */
+    Jump jump(Track track, Point entry, long length) {
+        if (!isBuilt) {
+            build();
+        }
+        Chain chain = chains.get(track);
+        if (chain == null) {
+            return null;
+        }
+        int index = chain.indices.get(track);
+        if (entry.equals(chain.joints.get(index))) {
+            // Largest last index, so that the tracks from index to last - 1 are shorter than length
+            int last = chain.lastIndexBelow(chain.prefix[index] + length, index, chain.tracks.size() - 1);
+            if (last == index) {
+                return null;
+            }
+            return new Jump(chain, chain.tracks.subList(index, last), chain.tracks.get(last),
+                    chain.joints.get(last), chain.prefix[last] - chain.prefix[index], index, last);
+        }
+        // Smallest last index, so that the tracks from index down to last + 1 are shorter than length
+        int last = Math.max(chain.lastIndexBelow(chain.prefix[index + 1] - length + 1, -1, index), 0);
+        if (last == index) {
+            return null;
+        }
+        List<Track> skipped = new ArrayList<>(chain.tracks.subList(last + 1, index + 1));
+        Collections.reverse(skipped);
+        return new Jump(chain, skipped, chain.tracks.get(last), chain.joints.get(last + 1),
+                chain.prefix[index + 1] - chain.prefix[last + 1], last + 1, index + 1);
+    }
+
+    /**
+     * Builds all chains of the network.
+     */
+    private void build() {
+        for (Track track : network.getTracks().values()) {
+            if (!track.isSwitch(track) && !chains.containsKey(track)) {
+                buildChain(track);
+            }
+        }
+        isBuilt = true;
+    }
+
+    /**
+     * Builds the maximal chain that contains the normal {@code track}.
+     *
+     * @param track of the chain
+     */
+    private void buildChain(Track track) {
+        Chain chain = new Chain();
+        Deque<Track> tracks = new ArrayDeque<>();
+        Deque<Point> joints = new ArrayDeque<>();
+        tracks.add(track);
+        joints.add(track.getStartPoint());
+        joints.add(track.getSwitchedTo());
+        chains.put(track, chain);
+        // Extend at the end
+        Track last = track;
+        Track next;
+        while ((next = nextInChain(joints.getLast(), last)) != null) {
+            chains.put(next, chain);
+            tracks.addLast(next);
+            joints.addLast(otherEnd(next, joints.getLast()));
+            last = next;
+        }
+        // Extend at the beginning
+        Track first = track;
+        while ((next = nextInChain(joints.getFirst(), first)) != null) {
+            chains.put(next, chain);
+            tracks.addFirst(next);
+            joints.addFirst(otherEnd(next, joints.getFirst()));
+            first = next;
+        }
+        chain.initialise(new ArrayList<>(tracks), new ArrayList<>(joints));
+    }
+
+    /**
+     * Gets the next track of the chain at {@code joint}.
+     *
+     * @param joint end of the {@code current} track
+     * @param current last track of the chain
+     * @return the next track or <code>null</code> if the chain ends at the {@code joint}
+     */
+    private Track nextInChain(Point joint, Track current) {
+        List<Track> connections = network.getTrackConnections(joint);
+        if (connections == null || connections.size() != Track.MAX_CONNECTIONS) {
+            return null;
+        }
+        Track next = connections.get(0) == current ? connections.get(1) : connections.get(0);
+        // A closed loop of normal tracks ends as soon as it reaches its first track again
+        if (next.isSwitch(next) || chains.containsKey(next)) {
+            return null;
+        }
+        return next;
+    }
+
+    /**
+     * Gets the end of a normal track that is not {@code point}.
+     *
+     * @param track normal track
+     * @param point one end of the track
+     * @return the other end
+     */
+    private static Point otherEnd(Track track, Point point) {
+        return point.equals(track.getStartPoint()) ? track.getSwitchedTo() : track.getStartPoint();
+    }
+
+    /**
+     * Maximal chain of normal tracks. The track with index i lies between the joints with index i and i + 1.
+     */
+    private static final class Chain {
+        private List<Track> tracks;
+        private List<Point> joints;
+        private Map<Track, Integer> indices;
+        private Map<Point, Integer> jointIndices;
+        /**
+         * The entry with index i is the length of all tracks before the track with index i.
+         */
+        private long[] prefix;
+
+        /**
+         * Initialises the chain with its tracks and joints.
+         *
+         * @param tracks of the chain in order
+         * @param joints of the chain in order, one more than tracks
+         */
+        private void initialise(List<Track> tracks, List<Point> joints) {
+            this.tracks = tracks;
+            this.joints = joints;
+            this.indices = new IdentityHashMap<>();
+            this.jointIndices = new HashMap<>();
+            this.prefix = new long[tracks.size() + 1];
+            for (int i = 0; i < tracks.size(); i++) {
+                indices.put(tracks.get(i), i);
+                prefix[i + 1] = prefix[i] + joints.get(i).distanceTo(joints.get(i + 1));
+            }
+            for (int i = 0; i < joints.size(); i++) {
+                jointIndices.putIfAbsent(joints.get(i), i);
+            }
+        }
+
+        /**
+         * Finds the largest index in the range from {@code low} to {@code high} whose prefix is below {@code bound}.
+         *
+         * @param bound exclusive upper bound of the prefix
+         * @param low smallest possible index, returned if no prefix in the range is below the bound
+         * @param high largest possible index
+         * @return the largest index whose prefix is below the bound
+         */
+        private int lastIndexBelow(long bound, int low, int high) {
+            int result = low;
+            int from = Math.max(low, 0);
+            int to = high;
+            while (from <= to) {
+                int middle = (from + to) >>> 1;
+                if (prefix[middle] < bound) {
+                    result = middle;
+                    from = middle + 1;
+                } else {
+                    to = middle - 1;
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Result of skipping tracks of a chain.
+     */
+    static final class Jump {
+        private final Chain chain;
+        private final List<Track> skipped;
+        private final Track next;
+        private final Point entry;
+        private final long length;
+        private final int firstJoint;
+        private final int lastJoint;
+
+        /**
+         * Creates a new jump from the given arguments.
+         *
+         * @param chain that the tracks have been skipped in
+         * @param skipped tracks in the order they are passed
+         * @param next track that is entered after the skipped ones
+         * @param entry point of the next track
+         * @param length of all skipped tracks
+         * @param firstJoint smallest index of the joints that have been passed
+         * @param lastJoint largest index of the joints that have been passed
+         */
+        private Jump(Chain chain, List<Track> skipped, Track next, Point entry, long length, int firstJoint,
+                     int lastJoint) {
+            this.chain = chain;
+            this.skipped = skipped;
+            this.next = next;
+            this.entry = entry;
+            this.length = length;
+            this.firstJoint = firstJoint;
+            this.lastJoint = lastJoint;
+        }
+
+        /**
+         * Gets the skipped tracks in the order they are passed.
+         *
+         * @return the skipped tracks
+         */
+        List<Track> getSkipped() {
+            return skipped;
+        }
+
+        /**
+         * Gets the track that is entered after the skipped ones.
+         *
+         * @return the next track
+         */
+        Track getNext() {
+            return next;
+        }
+
+        /**
+         * Gets the point at which the next track is entered.
+         *
+         * @return the entry of the next track
+         */
+        Point getEntry() {
+            return entry;
+        }
+
+        /**
+         * Gets the length of all skipped tracks.
+         *
+         * @return the skipped length
+         */
+        long getLength() {
+            return length;
+        }
+
+        /**
+         * Returns <code>true</code> if the {@code point} is one of the joints that have been passed, including
+         * the entries of the first skipped and of the next track.
+         *
+         * @param point to be checked
+         * @return <code>true</code> if the point has been passed
+         */
+        boolean passes(Point point) {
+            Integer index = chain.jointIndices.get(point);
+            if (index == null) {
+                return false;
+            }
+            // The first joint of a closed chain is also its last one
+            boolean isLastOfClosedChain = index == 0 && lastJoint == chain.joints.size() - 1
+                    && point.equals(chain.joints.get(lastJoint));
+            return firstJoint <= index && index <= lastJoint || isLastOfClosedChain;
+        }
+    }
+}
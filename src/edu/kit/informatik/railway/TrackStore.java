@@ -0,0 +1,226 @@
+package edu.kit.informatik.railway;
+
+import edu.kit.informatik.exception.LogicException;
+import edu.kit.informatik.util.Point;
+
+import java.util.Arrays;
+
+/**
+ * Geometry of all {@link Track tracks} of a {@link RailNetwork}, stored column by column in primitive arrays that
+ * are indexed by the slot of a track. A switch is stored with the endpoint it is switched to, so every track is
+ * a single horizontal or vertical line from its start to its end. The queries that are answered while trains
+ * move only read the arrays, instead of deriving the geometry from the points of a track again and again.
+ *
+ * <p>The store must be updated whenever a track is added, removed or switched.
+ *
+ * @author Lukas Probst
+ * @version 1.0
+ */
+class TrackStore {
+    /**
+     * Number of slots the arrays initially have room for.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+    private Track[] tracks;
+    private int[] ids;
+    private long[] startX;
+    private long[] startY;
+    private long[] endX;
+    private long[] endY;
+    private long[] minX;
+    private long[] maxX;
+    private long[] minY;
+    private long[] maxY;
+    private long[] lengths;
+    private boolean[] horizontal;
+    /**
+     * Whether a track is passable, i.e. it is in the store and its switch position is set.
+     */
+    private boolean[] passable;
+
+    /**
+     * Creates a new, empty store.
+     */
+    TrackStore() {
+        resize(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Stores the geometry of the {@code track} at its slot.
+     *
+     * @param track to be stored
+     */
+    void put(Track track) {
+        int slot = track.getSlot();
+        if (slot >= ids.length) {
+            resize(Math.max(slot + 1, 2 * ids.length));
+        }
+        tracks[slot] = track;
+        ids[slot] = track.getId();
+        update(track);
+    }
+
+    /**
+     * Updates the stored geometry of the {@code track} after its switch position has changed.
+     *
+     * @param track to be updated
+     */
+    void update(Track track) {
+        int slot = track.getSlot();
+        Point start = track.getStartPoint();
+        Point end = track.getSwitchedTo();
+        passable[slot] = end != null;
+        if (end == null) {
+            return;
+        }
+        startX[slot] = start.getFirstComponent();
+        startY[slot] = start.getSecondComponent();
+        endX[slot] = end.getFirstComponent();
+        endY[slot] = end.getSecondComponent();
+        minX[slot] = Math.min(startX[slot], endX[slot]);
+        maxX[slot] = Math.max(startX[slot], endX[slot]);
+        minY[slot] = Math.min(startY[slot], endY[slot]);
+        maxY[slot] = Math.max(startY[slot], endY[slot]);
+        horizontal[slot] = startY[slot] == endY[slot];
+        lengths[slot] = maxX[slot] - minX[slot] + maxY[slot] - minY[slot];
+    }
+
+    /**
+     * Removes the geometry of the {@code track}, so its slot can be used by another track.
+     *
+     * @param track to be removed
+     */
+    void remove(Track track) {
+        tracks[track.getSlot()] = null;
+        passable[track.getSlot()] = false;
+    }
+
+    /**
+     * Gets the track at the given {@code slot}.
+     *
+     * @param slot of the track
+     * @return the track
+     */
+    Track getTrack(int slot) {
+        return tracks[slot];
+    }
+
+    /**
+     * Gets the ID of the track at the given {@code slot}.
+     *
+     * @param slot of the track
+     * @return the ID of the track
+     */
+    int getId(int slot) {
+        return ids[slot];
+    }
+
+    /**
+     * Gets the length of the track at the given {@code slot}, as far as its switch position is set.
+     *
+     * @param slot of the track
+     * @return the length of the track
+     */
+    long getLength(int slot) {
+        return lengths[slot];
+    }
+
+    /**
+     * Returns <code>true</code> if the track at the given {@code slot} is passable at the {@code point}.
+     *
+     * @param slot of the track
+     * @param point to be checked
+     * @return <code>true</code> if the track is passable at the point
+     * @see Track#isPassable(Point)
+     */
+    boolean isPassable(int slot, Point point) {
+        if (!passable[slot]) {
+            return false;
+        }
+        long x = point.getFirstComponent();
+        long y = point.getSecondComponent();
+        if (horizontal[slot]) {
+            return y == startY[slot] && minX[slot] <= x && x <= maxX[slot];
+        }
+        return x == startX[slot] && minY[slot] <= y && y <= maxY[slot];
+    }
+
+    /**
+     * Gets the normalised direction of the track at the given {@code slot} towards the {@code point}.
+     *
+     * @param slot of the track
+     * @param point the start or end of the track
+     * @return the direction from start to end if the point is the end, otherwise the opposite direction
+     * @see Track#getDrivingDirection(Point)
+     */
+    Point getDrivingDirection(int slot, Point point) {
+        long x = Long.signum(endX[slot] - startX[slot]);
+        long y = Long.signum(endY[slot] - startY[slot]);
+        boolean isEnd = point.getFirstComponent() == endX[slot] && point.getSecondComponent() == endY[slot];
+        return isEnd ? new Point(x, y) : new Point(-x, -y);
+    }
+
+    /**
+     * Gets the point of the track at the given {@code slot} that a train facing the {@code direction} has passed.
+     *
+     * @param slot of the track
+     * @param direction of the train
+     * @return the start of the track if the direction points from start to end, otherwise the end
+     * @throws LogicException if the directions do not match
+     * @see Track#getPassedPoint(Point)
+     */
+    Point getPassedPoint(int slot, Point direction) throws LogicException {
+        long x = Long.signum(endX[slot] - startX[slot]);
+        long y = Long.signum(endY[slot] - startY[slot]);
+        if (x != direction.getFirstComponent() && y != direction.getSecondComponent()) {
+            throw new LogicException("directions do not match");
+        }
+        boolean towardsEnd = x == direction.getFirstComponent() && y == direction.getSecondComponent();
+        return towardsEnd ? new Point(startX[slot], startY[slot]) : new Point(endX[slot], endY[slot]);
+    }
+
+    /**
+     * Gets the distance between two points on the track at the given {@code slot}, which lie on one line.
+     *
+     * @param slot of the track
+     * @param from first point
+     * @param to second point
+     * @return the distance between the points
+     */
+    long distance(int slot, Point from, Point to) {
+        return horizontal[slot] ? Math.abs(from.getFirstComponent() - to.getFirstComponent())
+                : Math.abs(from.getSecondComponent() - to.getSecondComponent());
+    }
+
+    /**
+     * Resizes all arrays to the given {@code capacity}.
+     *
+     * @param capacity number of slots
+     */
+    private void resize(int capacity) {
+        tracks = tracks == null ? new Track[capacity] : Arrays.copyOf(tracks, capacity);
+        ids = ids == null ? new int[capacity] : Arrays.copyOf(ids, capacity);
+        startX = copyOf(startX, capacity);
+        startY = copyOf(startY, capacity);
+        endX = copyOf(endX, capacity);
+        endY = copyOf(endY, capacity);
+        minX = copyOf(minX, capacity);
+        maxX = copyOf(maxX, capacity);
+        minY = copyOf(minY, capacity);
+        maxY = copyOf(maxY, capacity);
+        lengths = copyOf(lengths, capacity);
+        horizontal = horizontal == null ? new boolean[capacity] : Arrays.copyOf(horizontal, capacity);
+        passable = passable == null ? new boolean[capacity] : Arrays.copyOf(passable, capacity);
+    }
+
+    /**
+     * Copies the {@code column} into a new array of the given {@code capacity}.
+     *
+     * @param column to be copied or <code>null</code> if there is none yet
+     * @param capacity of the new array
+     * @return the new array
+     */
+    private static long[] copyOf(long[] column, int capacity) {
+        return column == null ? new long[capacity] : Arrays.copyOf(column, capacity);
+    }
+}
@@ -0,0 +1,322 @@
+package edu.kit.informatik.railway;
+
+import edu.kit.informatik.util.Point;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Spatial index of a {@link RailNetwork} that partitions the plane into square tiles by coordinate range. A tile
+ * holds every track whose points span a rectangle that overlaps the tile, so all tracks that contain a point can
+ * be found among the tracks of its tile, instead of among all tracks of the network. This matters for points
+ * that are neither the start nor an end of a track and thus cannot be looked up in the connections.
+ *
+ * <p>The IDs of the tracks are indexed on {@link #LEVELS} levels of tiles, each level with tiles that are
+ * {@code 2^LEVEL_SHIFT} times as large as those of the level below. Every track is indexed on the lowest level
+ * where it overlaps at most two tiles in each direction, so adding or removing a track only touches up to four
+ * tiles. The index is kept up to date whenever tracks are added or removed.
+ *
+ * <p>Tiles of the lowest level are loaded lazily on their first access, which only resolves the tracks of that
+ * tile and of the larger tiles above it. Loaded tiles are kept in least recently used order. As soon as the
+ * loaded tiles hold more than {@link #MAX_ENTRIES} tracks altogether, the least recently used tiles are evicted
+ * and loaded again when they are accessed the next time. Switch positions do not matter, as a tile holds a switch
+ * with all of its endpoints.
+ *
+ * @author Lukas Probst
+ * @version 1.0
+ */
+class TrackTiles {
+    /**
+     * Binary logarithm of the edge length of a tile of the lowest level.
+     */
+    private static final int TILE_SHIFT = 10;
+    /**
+     * Binary logarithm of the factor between the edge lengths of the tiles of two adjacent levels.
+     */
+    private static final int LEVEL_SHIFT = 3;
+    /**
+     * Number of levels, the tiles of the highest level cover the 32-bit coordinates of tracks with two tiles in
+     * each direction.
+     */
+    private static final int LEVELS = 8;
+    /**
+     * Maximum number of tracks held by all loaded tiles together, apart from the tile that is accessed.
+     */
+    private static final int MAX_ENTRIES = 1 << 20;
+    private final RailNetwork network;
+    /**
+     * IDs of the tracks of every tile by the packed coordinates of the tile, one map per level.
+     */
+    private final List<Map<Long, List<Integer>>> levels;
+    /**
+     * Loaded tiles of the lowest level by their packed coordinates, in least recently used order.
+     */
+    private final LinkedHashMap<Long, Track[]> tiles;
+    private int entries;
+
+    /**
+     * Creates a new, empty index of the given {@code network}.
+     *
+     * @param network to build the tiles of
+     */
+    TrackTiles(RailNetwork network) {
+        this.network = network;
+        this.levels = new ArrayList<>(LEVELS);
+        for (int level = 0; level < LEVELS; level++) {
+            levels.add(new HashMap<>());
+        }
+        this.tiles = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Indexes a track that has been added to the network.
+     *
+     * @param track that has been added
+     */
+    void add(Track track) {
+        long[] bounds = getBounds(track);
+        int level = getLevel(bounds);
+        forEachTile(bounds, shiftOf(level), key -> levels.get(level).computeIfAbsent(key, x -> new ArrayList<>())
+                .add(track.getId()));
+        unload(bounds);
+    }
+
+    /**
+     * Removes a track that has been removed from the network from the index.
+     *
+     * @param track that has been removed
+     */
+    void remove(Track track) {
+        long[] bounds = getBounds(track);
+        int level = getLevel(bounds);
+        Map<Long, List<Integer>> index = levels.get(level);
+        forEachTile(bounds, shiftOf(level), key -> {
+            List<Integer> trackIds = index.get(key);
+            if (trackIds != null) {
+                trackIds.remove(Integer.valueOf(track.getId()));
+                if (trackIds.isEmpty()) {
+                    index.remove(key);
+                }
+            }
+        });
+        unload(bounds);
+    }
+
+    /**
+     * Gets all tracks of the tile that contains the {@code point}, in ascending order of their IDs. These are
+     * all tracks that may contain the point, but not all of them do.
+     *
+     * @param point to get the tile of
+     * @return all tracks of the tile
+     */
+    List<Track> getTracks(Point point) {
+        long tileX = clamp(point.getFirstComponent()) >> TILE_SHIFT;
+        long tileY = clamp(point.getSecondComponent()) >> TILE_SHIFT;
+        Long key = pack(tileX, tileY);
+        Track[] tile = tiles.get(key);
+        if (tile == null) {
+            long minX = tileX << TILE_SHIFT;
+            long minY = tileY << TILE_SHIFT;
+            tile = getTracks(minX, minY, minX + (1L << TILE_SHIFT) - 1, minY + (1L << TILE_SHIFT) - 1)
+                    .toArray(new Track[0]);
+            tiles.put(key, tile);
+            entries += tile.length;
+            evict(key);
+        }
+        return Arrays.asList(tile);
+    }
+
+    /**
+     * Gets all tracks whose points span a rectangle that overlaps the given rectangle with inclusive bounds, in
+     * ascending order of their IDs. Only the indexed tiles that overlap the rectangle are visited.
+     *
+     * @param minX lowest X coordinate of the rectangle
+     * @param minY lowest Y coordinate of the rectangle
+     * @param maxX highest X coordinate of the rectangle
+     * @param maxY highest Y coordinate of the rectangle
+     * @return all tracks that overlap the rectangle
+     */
+    List<Track> getTracks(long minX, long minY, long maxX, long maxY) {
+        // No track lies beyond 32-bit coordinates, so neither do the tiles to be visited
+        long[] area = {clamp(minX), clamp(minY), clamp(maxX), clamp(maxY)};
+        SortedSet<Integer> trackIds = new TreeSet<>();
+        for (int level = 0; level < LEVELS; level++) {
+            Map<Long, List<Integer>> index = levels.get(level);
+            int shift = shiftOf(level);
+            long width = (area[2] >> shift) - (area[0] >> shift) + 1;
+            long height = (area[3] >> shift) - (area[1] >> shift) + 1;
+            if (width * height <= index.size()) {
+                forEachTile(area, shift, key -> {
+                    List<Integer> tile = index.get(key);
+                    if (tile != null) {
+                        trackIds.addAll(tile);
+                    }
+                });
+            } else {
+                // The rectangle covers more tiles than this level has tiles with tracks
+                index.forEach((key, tile) -> {
+                    long tileX = key >> Integer.SIZE;
+                    long tileY = (int) (long) key;
+                    if (area[0] >> shift <= tileX && tileX <= area[2] >> shift
+                            && area[1] >> shift <= tileY && tileY <= area[3] >> shift) {
+                        trackIds.addAll(tile);
+                    }
+                });
+            }
+        }
+        List<Track> tracks = new ArrayList<>(trackIds.size());
+        for (int trackId : trackIds) {
+            Track track = network.getTracks().get(trackId);
+            long[] bounds = getBounds(track);
+            if (bounds[0] <= maxX && minX <= bounds[2] && bounds[1] <= maxY && minY <= bounds[3]) {
+                tracks.add(track);
+            }
+        }
+        return tracks;
+    }
+
+    /**
+     * Unloads all loaded tiles of the lowest level that overlap the given bounds, as their tracks have changed.
+     *
+     * @param bounds of a track that has been added or removed
+     */
+    private void unload(long[] bounds) {
+        long width = (bounds[2] >> TILE_SHIFT) - (bounds[0] >> TILE_SHIFT) + 1;
+        long height = (bounds[3] >> TILE_SHIFT) - (bounds[1] >> TILE_SHIFT) + 1;
+        if (width * height <= tiles.size()) {
+            forEachTile(bounds, TILE_SHIFT, key -> {
+                Track[] tile = tiles.remove(key);
+                if (tile != null) {
+                    entries -= tile.length;
+                }
+            });
+            return;
+        }
+        Iterator<Map.Entry<Long, Track[]>> iterator = tiles.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Long, Track[]> tile = iterator.next();
+            long tileX = tile.getKey() >> Integer.SIZE;
+            long tileY = (int) (long) tile.getKey();
+            if (bounds[0] >> TILE_SHIFT <= tileX && tileX <= bounds[2] >> TILE_SHIFT
+                    && bounds[1] >> TILE_SHIFT <= tileY && tileY <= bounds[3] >> TILE_SHIFT) {
+                entries -= tile.getValue().length;
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Evicts the least recently used tiles until the budget is kept, except for the tile with the given key.
+     *
+     * @param accessed key of the tile that is accessed
+     */
+    private void evict(Long accessed) {
+        Iterator<Map.Entry<Long, Track[]>> iterator = tiles.entrySet().iterator();
+        while (entries > MAX_ENTRIES && iterator.hasNext()) {
+            Map.Entry<Long, Track[]> eldest = iterator.next();
+            if (!eldest.getKey().equals(accessed)) {
+                entries -= eldest.getValue().length;
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Calls the {@code action} with the packed coordinates of every tile that overlaps the given bounds.
+     *
+     * @param bounds lowest X, lowest Y, highest X and highest Y coordinate of a rectangle
+     * @param shift binary logarithm of the edge length of the tiles
+     * @param action to be called with the packed coordinates of each tile
+     */
+    private static void forEachTile(long[] bounds, int shift, TileAction action) {
+        for (long tileX = bounds[0] >> shift; tileX <= bounds[2] >> shift; tileX++) {
+            for (long tileY = bounds[1] >> shift; tileY <= bounds[3] >> shift; tileY++) {
+                action.accept(pack(tileX, tileY));
+            }
+        }
+    }
+
+    /**
+     * Gets the lowest level on which a track with the given bounds overlaps at most two tiles in each direction.
+     *
+     * @param bounds of the track
+     * @return the level of the track
+     */
+    private static int getLevel(long[] bounds) {
+        for (int level = 0; level < LEVELS - 1; level++) {
+            int shift = shiftOf(level);
+            if ((bounds[2] >> shift) - (bounds[0] >> shift) <= 1 && (bounds[3] >> shift) - (bounds[1] >> shift) <= 1) {
+                return level;
+            }
+        }
+        return LEVELS - 1;
+    }
+
+    /**
+     * Gets the binary logarithm of the edge length of the tiles of a level.
+     *
+     * @param level of the tiles
+     * @return the binary logarithm of the edge length
+     */
+    private static int shiftOf(int level) {
+        return TILE_SHIFT + level * LEVEL_SHIFT;
+    }
+
+    /**
+     * Gets the rectangle spanned by all points of a {@code track}.
+     *
+     * @param track to get the bounds of
+     * @return the lowest X, lowest Y, highest X and highest Y coordinate of the track
+     */
+    private static long[] getBounds(Track track) {
+        long[] bounds = {Long.MAX_VALUE, Long.MAX_VALUE, Long.MIN_VALUE, Long.MIN_VALUE};
+        for (Point point : track.getPoints()) {
+            bounds[0] = Math.min(bounds[0], point.getFirstComponent());
+            bounds[1] = Math.min(bounds[1], point.getSecondComponent());
+            bounds[2] = Math.max(bounds[2], point.getFirstComponent());
+            bounds[3] = Math.max(bounds[3], point.getSecondComponent());
+        }
+        return bounds;
+    }
+
+    /**
+     * Limits a coordinate to the 32-bit coordinates of tracks.
+     *
+     * @param coordinate to be limited
+     * @return the limited coordinate
+     */
+    private static long clamp(long coordinate) {
+        return Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, coordinate));
+    }
+
+    /**
+     * Packs the coordinates of a tile into a single key.
+     *
+     * @param tileX X coordinate of the tile
+     * @param tileY Y coordinate of the tile
+     * @return the key of the tile
+     */
+    private static long pack(long tileX, long tileY) {
+        return tileX << Integer.SIZE | tileY & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Action on a single tile.
+     */
+    @FunctionalInterface
+    private interface TileAction {
+        /**
+         * Performs the action on a tile.
+         *
+         * @param key packed coordinates of the tile
+         */
+        void accept(long key);
+    }
+}
@@ -5,6 +5,7 @@ import edu.kit.informatik.rollingstock.RollingStock;
 import edu.kit.informatik.util.Point;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -14,10 +15,24 @@ import java.util.List;
  * @version 1.0
  */
 public class Train implements Comparable<Train> {
+    /**
+     * Maximum number of units a train can move per tick.
+     */
+    public static final int MAX_SPEED = Short.MAX_VALUE;
     private final List<RollingStock> train;
     private final int id;
     private long length;
+    /**
+     * Cumulative lengths of the rolling stock, so the rolling stock at index <code>i</code> covers the offsets
+     * from <code>offsets[i]</code> to <code>offsets[i + 1]</code> behind the head of the train. Only the first
+     * entries up to the number of rolling stock are used, the others are room for more.
+     */
+    private long[] offsets = new long[2];
     private final Placement placement;
+    /**
+     * Number of units the train moves per tick, which is 1 unless it has been set.
+     */
+    private int speed = 1;
 
     /**
      * Creates a new train with the given {@code id}.
@@ -30,6 +45,23 @@ public class Train implements Comparable<Train> {
         this.placement = new Placement(null, null);
     }
 
+    /**
+     * Creates a copy of the train with the same rolling stock, length, speed and placement.
+     * The rolling stock is shared, as it never changes.
+     *
+     * @return the copy of the train
+     */
+    Train copy() {
+        Train copy = new Train(id);
+        copy.train.addAll(train);
+        copy.offsets = offsets.clone();
+        copy.length = length;
+        copy.speed = speed;
+        copy.setPosition(getPosition());
+        copy.setDirection(getDirection());
+        return copy;
+    }
+
     /**
      * Gets the ID of the train.
      *
@@ -51,16 +83,60 @@ public class Train implements Comparable<Train> {
             // Check coupling compatibility
             if (rollingStock.canCoupleTo(lastRollingStock) && lastRollingStock.canCoupleTo(rollingStock)
                     && lastRollingStock.isCouplingBack() && rollingStock.isCouplingFront()) {
-                train.add(rollingStock);
-                length += rollingStock.getLength();
+                append(rollingStock);
             } else {
                 throw new LogicException("invalid coupling");
             }
         } else {
             // No restrictions
-            train.add(rollingStock);
-            length += rollingStock.getLength();
+            append(rollingStock);
+        }
+    }
+
+    /**
+     * Appends the {@code rollingStock} to the end of the train and extends the offsets.
+     *
+     * @param rollingStock to be appended
+     */
+    private void append(RollingStock rollingStock) {
+        train.add(rollingStock);
+        length += rollingStock.getLength();
+        if (train.size() == offsets.length) {
+            offsets = Arrays.copyOf(offsets, 2 * offsets.length);
+        }
+        offsets[train.size()] = offsets[train.size() - 1] + rollingStock.getLength();
+    }
+
+    /**
+     * Gets the rolling stock that covers the given {@code offset} behind the head of the train, using a binary
+     * search over the cumulative lengths of the rolling stock. At an offset between two rolling stock, the one
+     * behind is chosen.
+     *
+     * @param offset behind the head of the train
+     * @return the rolling stock at the offset
+     * @throws LogicException if the offset is not between 0 and the length of all rolling stock
+     */
+    public RollingStock getRollingStockAt(long offset) throws LogicException {
+        int size = train.size();
+        if (offset < 0 || offset > offsets[size]) {
+            throw new LogicException("the offset must be between 0 and " + offsets[size]);
         }
+        // Search among the offsets where the rolling stock starts, the end of the train leads to the last one
+        int index = Arrays.binarySearch(offsets, 0, size, offset);
+        return train.get(index >= 0 ? index : -index - 2);
+    }
+
+    /**
+     * Restores a previous composition of the train.
+     *
+     * @param rollingStock of the train in order
+     * @param length of the train
+     */
+    void restore(List<RollingStock> rollingStock, long length) {
+        train.clear();
+        offsets = new long[Math.max(2, rollingStock.size() + 1)];
+        rollingStock.forEach(this::append);
+        this.length = length;
     }
 
     /**
@@ -72,6 +148,24 @@ public class Train implements Comparable<Train> {
         return length;
     }
 
+    /**
+     * Gets the number of units the train moves per tick.
+     *
+     * @return the speed of the train
+     */
+    public int getSpeed() {
+        return speed;
+    }
+
+    /**
+     * Sets the number of units the train moves per tick. A train with speed 0 stays where it is.
+     *
+     * @param speed of the train between 0 and {@link #MAX_SPEED}
+     */
+    void setSpeed(int speed) {
+        this.speed = speed;
+    }
+
     /**
      * Gets the {@link RollingStock} of the train.
      *
@@ -1,19 +1,20 @@
 package edu.kit.informatik.railway;
 
-import edu.kit.informatik.Terminal;
 import edu.kit.informatik.exception.LogicException;
-import edu.kit.informatik.userinterface.InOutput;
 import edu.kit.informatik.util.Point;
+import edu.kit.informatik.util.Tracer;
 
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -25,20 +26,78 @@ import java.util.stream.Stream;
  */
 public class TrainManager {
     /**
-     * Maximum amount of {@link Train trains} that can be on a {@link Track}.
+     * Category of all slices recorded by the {@link Tracer}.
      */
-    private static final int MAX_TRAINS_ON_TRACK = 1;
+    private static final String TRACE_CATEGORY = "step";
+    /**
+     * Horizon that turns the {@link Interlocking} off.
+     */
+    public static final long NO_INTERLOCKING = -1;
     private final List<Train> trainsOnTracks;
     private final RailNetwork railNetwork;
+    private final Timetable timetable;
+    /**
+     * Number of tracks visited by all unit steps so far, used for the {@link StepPhaseEvent}.
+     */
+    private long tracksVisited;
+    /**
+     * Number of units ahead of every train that it reserves or {@link #NO_INTERLOCKING}.
+     */
+    private long interlockingHorizon = NO_INTERLOCKING;
 
     /**
      * Creates a new train manager with the given {@code railNetwork}.
      *
      * @param railNetwork that the trains will operate on
+     * @param timetable whose actions are carried out while the trains move
      */
-    public TrainManager(RailNetwork railNetwork) {
+    public TrainManager(RailNetwork railNetwork, Timetable timetable) {
         this.trainsOnTracks = new ArrayList<>();
         this.railNetwork = railNetwork;
+        this.timetable = timetable;
+    }
+
+    /**
+     * Creates a copy of the train manager that operates on the forked {@code railNetwork}. The actions of the
+     * timetable belong to the original register, so the copy starts with the given empty timetable.
+     *
+     * @param railNetwork the forked rail network
+     * @param copies maps every train to its copy
+     * @param timetable of the copy
+     * @return the copy of the train manager
+     */
+    TrainManager fork(RailNetwork railNetwork, UnaryOperator<Train> copies, Timetable timetable) {
+        TrainManager copy = new TrainManager(railNetwork, timetable);
+        trainsOnTracks.stream().map(copies).forEach(copy.trainsOnTracks::add);
+        copy.interlockingHorizon = interlockingHorizon;
+        return copy;
+    }
+
+    /**
+     * Gets the horizon of the {@link Interlocking}.
+     *
+     * @return the number of units ahead of every train that it reserves or {@link #NO_INTERLOCKING}
+     */
+    long getInterlockingHorizon() {
+        return interlockingHorizon;
+    }
+
+    /**
+     * Sets the horizon of the {@link Interlocking}.
+     *
+     * @param interlockingHorizon number of units ahead of every train that it reserves or {@link #NO_INTERLOCKING}
+     */
+    void setInterlockingHorizon(long interlockingHorizon) {
+        this.interlockingHorizon = interlockingHorizon;
+    }
+
+    /**
+     * Gets the timetable whose actions are carried out while the trains move.
+     *
+     * @return the timetable
+     */
+    Timetable getTimetable() {
+        return timetable;
     }
 
     /**
@@ -97,7 +156,7 @@ public class TrainManager {
      * @throws LogicException if one or more switch positions have not been set
      */
     private void checkPositionOfSwitches() throws LogicException {
-        if (railNetwork.getTracks().values().stream().anyMatch(track -> track.getSwitchedTo() == null)) {
+        if (railNetwork.hasUnsetSwitches()) {
             throw new LogicException("position of switches not set");
         }
     }
@@ -123,7 +182,7 @@ public class TrainManager {
      * @param requiredTracks of the {@code train}
      */
     private void assignTrainToTracks(Train train, List<Track> requiredTracks) {
-        requiredTracks.forEach(required -> required.setCurrentTrain(train));
+        requiredTracks.forEach(required -> railNetwork.occupy(required, train));
         trainsOnTracks.add(train);
     }
 
@@ -133,7 +192,7 @@ public class TrainManager {
      * @param listSet is the already existing set
      * @param newSet to be added to {@code listSet}
      */
-    private void addToSetOrAddNew(List<SortedSet<Train>> listSet, SortedSet<Train> newSet) {
+    void addToSetOrAddNew(List<SortedSet<Train>> listSet, SortedSet<Train> newSet) {
         Set<Train> existingTrains = null;
         int i = 0;
         while (i < listSet.size()) {
@@ -156,38 +215,96 @@ public class TrainManager {
     }
 
     /**
-     * Lets all {@link Train trains} move {@code speed}-units.
+     * Lets all {@link Train trains} move {@code speed}-units without showing anything. If trains have individual
+     * speeds, each of them moves its own speed times {@code speed} units and the {@link MoveScheduler} moves them
+     * in chronological order. Actions of the {@link Timetable} are carried out at the tick they are due, before
+     * the trains move on. As soon as the trains return to an earlier state, whole periods of the cycle are
+     * skipped up to the next action, so trains circulating on closed loops cost only as many ticks as their
+     * period, however large the speed is. With the {@link Interlocking}, trains hold instead of crashing or
+     * derailing and cycles are not skipped, as the interlocking sets switches as well.
      *
-     * @param speed to move all trains by
+     * @param speed number of ticks to move all trains, negative to drive backwards
+     * @param progress receives every completed tick and stops the movement at the next tick if it is cancelled
+     * @return the actions carried out, the crashes and the positions of the trains after moving
      * @throws LogicException if there is a problem with moving the trains
      */
-    public void step(short speed) throws LogicException {
+    public StepResult simulate(long speed, StepProgress progress) throws LogicException {
         checkPositionOfSwitches();
-        if (trainsOnTracks.isEmpty()) {
-            Terminal.printLine(InOutput.OK_MESSAGE);
-            return;
-        }
+        List<String> events = new ArrayList<>();
         List<SortedSet<Train>> crashes = new ArrayList<>();
-        for (int i = 0; i < Math.abs(speed); i++) {
-            step(speed < 0, crashes);
+        if (trainsOnTracks.isEmpty() && timetable.isEmpty()) {
+            return new StepResult(events, new ArrayList<>(), new LinkedHashMap<>());
         }
-        for (SortedSet<Train> set : crashes.stream()
-                .sorted(Comparator.comparing(SortedSet::first))
-                .collect(Collectors.toList())) {
-            Terminal.printLine("Crash of train "  + String.join(",", set.stream()
-                    .map(Train::getId)
-                    .map(Object::toString)
-                    .toArray(CharSequence[]::new)));
+        // Actions cannot schedule further actions, so the clock is only needed if there are any now
+        boolean timed = !timetable.isEmpty();
+        long startTime = timetable.getNow();
+        try {
+            boolean changed = timed && timetable.fire(0, events);
+            CycleDetector cycles = new CycleDetector();
+            boolean skipped = false;
+            boolean interlocked = interlockingHorizon != NO_INTERLOCKING;
+            MoveScheduler scheduler = createScheduler(speed < 0);
+            for (long i = 0; i < progress.getTotalTicks() && !progress.isCancelled(); i++) {
+                if (changed) {
+                    // The trains may have changed, so earlier states and required tracks are void
+                    cycles = new CycleDetector();
+                    skipped = false;
+                    scheduler = createScheduler(speed < 0);
+                }
+                long start = Tracer.now();
+                if (scheduler == null) {
+                    step(speed < 0, crashes);
+                } else {
+                    scheduler.tick(speed < 0, crashes);
+                }
+                Tracer.complete(TRACE_CATEGORY, "tick", start);
+                long ticks = 1;
+                long period = skipped || interlocked ? 0 : cycles.observe(i + 1, trainsOnTracks);
+                if (period > 0) {
+                    // No train can crash within a cycle, because the same trains have to be on tracks at its end
+                    long skip = Math.min(progress.getTotalTicks() - i - 1, timetable.untilNext() - 1);
+                    skip = skip / period * period;
+                    i += skip;
+                    ticks += skip;
+                    skipped = true;
+                }
+                changed = false;
+                if (timed) {
+                    timetable.advance(ticks);
+                    changed = timetable.fire(i + 1, events);
+                }
+                progress.update(i + 1, crashes.size());
+            }
+        } finally {
+            if (timed) {
+                timetable.recordAdvance(startTime);
+            }
         }
-        showTrainPositions();
+        List<List<Integer>> crashedIds = crashes.stream()
+                .sorted(Comparator.comparing(SortedSet::first))
+                .map(set -> set.stream().map(Train::getId).collect(Collectors.toList()))
+                .collect(Collectors.toList());
+        Map<Integer, Point> positions = new LinkedHashMap<>();
+        trainsOnTracks.forEach(train -> positions.put(train.getId(), train.getPosition()));
+        return new StepResult(events, crashedIds, positions);
     }
 
     /**
-     * Shows the positions of all {@link Train trains} that are on {@link Track tracks}.
+     * Creates a scheduler if any train on tracks has an individual speed or the {@link Interlocking} is on.
+     *
+     * @param isDrivingBackwards whether the trains are driving backwards or not
+     * @return the scheduler or <code>null</code> if all trains move one unit per tick
+     * @throws LogicException if the tracks of a train cannot be determined
      */
-    private void showTrainPositions() {
-        trainsOnTracks.stream()
-                .map(train -> "Train " + train.getId() + " at " + train.getPosition()).forEach(Terminal::printLine);
+    private MoveScheduler createScheduler(boolean isDrivingBackwards) throws LogicException {
+        if (interlockingHorizon != NO_INTERLOCKING) {
+            return new MoveScheduler(this, railNetwork,
+                    new Interlocking(this, railNetwork, interlockingHorizon, isDrivingBackwards));
+        }
+        if (trainsOnTracks.stream().allMatch(train -> train.getSpeed() == 1)) {
+            return null;
+        }
+        return new MoveScheduler(this, railNetwork, null);
     }
 
     /**
@@ -198,13 +315,18 @@ public class TrainManager {
      * @throws LogicException if there is a problem with moving the trains
      */
     private void step(boolean isDrivingBackwards, List<SortedSet<Train>> crashes) throws LogicException {
+        StepPhaseEvent event = beginPhase(StepPhaseEvent.NEXT_PLACEMENTS);
         Map<Train, Placement> placements = nextPlacements(isDrivingBackwards);
         List<Train> removed = trainsOnTracks.stream()
                 .filter(train -> !placements.containsKey(train))
                 .collect(Collectors.toList());
+        commitPhase(event, removed.size());
         removed.forEach(Train::shorten);
         removed.forEach(train -> placements.put(train, train.getPlacement()));
+        event = beginPhase(StepPhaseEvent.FIND_COLLIDED_TRAINS);
         List<SortedSet<Train>> collided = findCollidedTrains(placements);
+        commitPhase(event, removed.size() + collided.size());
+        event = beginPhase(StepPhaseEvent.HANDLE_COLLISIONS);
         trainsOnTracks.removeAll(removed);
         removed.forEach(Train::resetLength);
         placements.keySet().removeAll(removed);
@@ -214,8 +336,45 @@ public class TrainManager {
         }
         removed.forEach(train -> addToSetOrAddNew(crashes, Stream.of(train)
                 .collect(Collectors.toCollection(TreeSet::new))));
-        railNetwork.getTracks().values().forEach(train -> train.setCurrentTrain(null));
+        commitPhase(event, removed.size() + collided.size());
+        event = beginPhase(StepPhaseEvent.CLEAR_OCCUPANCY);
+        railNetwork.getTracks().values().forEach(track -> railNetwork.occupy(track, null));
+        tracksVisited += railNetwork.getTracks().size();
+        commitPhase(event, removed.size() + collided.size());
+        event = beginPhase(StepPhaseEvent.MOVE_TRAINS);
         moveTrains(placements);
+        commitPhase(event, removed.size() + collided.size());
+    }
+
+    /**
+     * Begins a {@link StepPhaseEvent} for the given {@code phase}.
+     *
+     * @param phase of the unit step
+     * @return the begun event
+     */
+    private StepPhaseEvent beginPhase(String phase) {
+        StepPhaseEvent event = new StepPhaseEvent(phase, trainsOnTracks.size());
+        // Temporarily holds the tracks visited before the phase
+        event.tracksVisited = tracksVisited;
+        event.traceStart = Tracer.now();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Ends and commits the {@link StepPhaseEvent} if it is enabled in the current recording.
+     *
+     * @param event to be committed
+     * @param crashCount number of crashes of the unit step known at the end of the phase
+     */
+    private void commitPhase(StepPhaseEvent event, int crashCount) {
+        event.end();
+        Tracer.complete(TRACE_CATEGORY, event.phase, event.traceStart);
+        if (event.shouldCommit()) {
+            event.tracksVisited = tracksVisited - event.tracksVisited;
+            event.crashCount = crashCount;
+            event.commit();
+        }
     }
 
     /**
@@ -251,15 +410,15 @@ public class TrainManager {
      * @param isDrivingBackwards whether the {@link Train} is driving backwards or not
      * @return the next placement of the {@code train}
      */
-    private Optional<Placement> nextPlacement(Train train, boolean isDrivingBackwards) {
+    Optional<Placement> nextPlacement(Train train, boolean isDrivingBackwards) {
         Track track = railNetwork.findTrack(train.getPosition(), train.getDirection()).get();
         Placement next = train.getPlacement();
         next = isDrivingBackwards ? next.moveBackwards() : next.move();
-        if (!track.isPassable(next.getPosition())) {
+        if (!railNetwork.isPassable(track, next.getPosition())) {
             if (railNetwork.getConnection(train.getPosition(), track).isPresent()) {
                 track = railNetwork.getConnection(train.getPosition(), track).get();
                 Point current = train.getPosition();
-                Point drivingDirection = track.getDrivingDirection(current).negate();
+                Point drivingDirection = railNetwork.getDrivingDirection(track, current).negate();
                 if (isDrivingBackwards) {
                     next = train.getPlacement().moveBackwards(drivingDirection);
                 } else {
@@ -271,8 +430,8 @@ public class TrainManager {
         }
         if (next != null) {
             try {
-                railNetwork.getRequiredTracks(track, next.getPosition(), next.getDirection(), train.getLength(),
-                        isDrivingBackwards);
+                tracksVisited += railNetwork.getRequiredTracks(track, next.getPosition(), next.getDirection(),
+                        train.getLength(), isDrivingBackwards).size();
             } catch (LogicException e) {
                 next = null;
             }
@@ -288,26 +447,17 @@ public class TrainManager {
      * @throws LogicException if there is a problem with the required {@link Track tracks}
      */
     private List<SortedSet<Train>> findCollidedTrains(Map<Train, Placement> placements) throws LogicException {
-        Map<Track, TreeSet<Train>> trainsOnTracks = new HashMap<>();
+        Occupancy occupancy = new Occupancy();
         for (Map.Entry<Train, Placement> entry : placements.entrySet()) {
             Train train = entry.getKey();
             Placement next = entry.getValue();
             Track requiredTrack = railNetwork.findTrack(next.getPosition(), next.getDirection()).get();
             List<Track> required = railNetwork.getRequiredTracks(requiredTrack, next.getPosition(), next.getDirection(),
                     train.getLength(), false);
-            for (Track track : required) {
-                trainsOnTracks.computeIfAbsent(track, x -> new TreeSet<>()).add(train);
-            }
-        }
-        // Get collided trains
-        trainsOnTracks.values().removeIf(trains -> trains.size() <= MAX_TRAINS_ON_TRACK);
-        List<SortedSet<Train>> trainSet = new ArrayList<>();
-        for (TreeSet<Train> trains : trainsOnTracks.values()) {
-            if (trains.size() > 1) {
-                addToSetOrAddNew(trainSet, trains);
-            }
+            tracksVisited += required.size();
+            occupancy.add(train, Occupancy.footprintOf(required));
         }
-        return trainSet;
+        return occupancy.findCollidedTrains(this);
     }
 
     /**
@@ -324,7 +474,8 @@ public class TrainManager {
             Track startTrack = railNetwork.findTrack(train.getPosition(), train.getDirection()).get();
             List<Track> current = railNetwork.getRequiredTracks(startTrack, train.getPosition(), train.getDirection(),
                     train.getLength(), true);
-            current.forEach(track -> track.setCurrentTrain(train));
+            tracksVisited += current.size();
+            current.forEach(track -> railNetwork.occupy(track, train));
         }
     }
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package edu.kit.informatik.rollingstock;
 
+import edu.kit.informatik.util.SymbolTable;
+
 /**
  * An abstract engine that inherits all the attributes of the {@link RollingStock} and also has a series and a name.
  *
@@ -9,6 +11,12 @@ package edu.kit.informatik.rollingstock;
 public abstract class Engine extends RollingStock {
     private final String series;
     private final String name;
+    private final int seriesSymbol;
+    private final int nameSymbol;
+    /**
+     * The ID, which is built once as it never changes.
+     */
+    private final String id;
 
     /**
      * Creates a new engine from the given arguments.
@@ -23,6 +31,9 @@ public abstract class Engine extends RollingStock {
         super(length, couplingFront, couplingBack);
         this.series = series;
         this.name = name;
+        this.seriesSymbol = SymbolTable.intern(series);
+        this.nameSymbol = SymbolTable.intern(name);
+        this.id = series + "-" + name;
     }
 
     /**
@@ -32,7 +43,7 @@ public abstract class Engine extends RollingStock {
      */
     @Override
     public String getId() {
-        return series + "-" + name;
+        return id;
     }
 
     @Override
@@ -58,6 +69,24 @@ public abstract class Engine extends RollingStock {
         return name;
     }
 
+    /**
+     * Gets the {@link SymbolTable} handle of the series of the engine.
+     *
+     * @return the handle of the series
+     */
+    public int getSeriesSymbol() {
+        return seriesSymbol;
+    }
+
+    /**
+     * Gets the {@link SymbolTable} handle of the name of the engine.
+     *
+     * @return the handle of the name
+     */
+    public int getNameSymbol() {
+        return nameSymbol;
+    }
+
     @Override
     public boolean isUseful() {
         return true;
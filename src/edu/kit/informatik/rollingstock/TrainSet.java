@@ -1,6 +1,7 @@
 package edu.kit.informatik.rollingstock;
 
 import edu.kit.informatik.exception.LogicException;
+import edu.kit.informatik.util.SymbolTable;
 
 /**
  * Represents a train-set.
@@ -11,6 +12,12 @@ import edu.kit.informatik.exception.LogicException;
 public class TrainSet extends RollingStock {
     private final String series;
     private final String name;
+    private final int seriesSymbol;
+    private final int nameSymbol;
+    /**
+     * The ID, which is built once as it never changes.
+     */
+    private final String id;
 
     /**
      * Creates a new train-set from the given arguments.
@@ -25,6 +32,9 @@ public class TrainSet extends RollingStock {
         super(length, couplingFront, couplingBack);
         this.series = series;
         this.name = name;
+        this.seriesSymbol = SymbolTable.intern(series);
+        this.nameSymbol = SymbolTable.intern(name);
+        this.id = series + "-" + name;
     }
 
     /**
@@ -34,7 +44,7 @@ public class TrainSet extends RollingStock {
      */
     @Override
     public String getId() {
-        return series + "-" + name;
+        return id;
     }
 
     @Override
@@ -74,6 +84,24 @@ public class TrainSet extends RollingStock {
         return name;
     }
 
+    /**
+     * Gets the {@link SymbolTable} handle of the series of the train-set.
+     *
+     * @return the handle of the series
+     */
+    public int getSeriesSymbol() {
+        return seriesSymbol;
+    }
+
+    /**
+     * Gets the {@link SymbolTable} handle of the name of the train-set.
+     *
+     * @return the handle of the name
+     */
+    public int getNameSymbol() {
+        return nameSymbol;
+    }
+
     /**
      * Returns the string representation of a train-set.
      *
@@ -97,8 +125,7 @@ public class TrainSet extends RollingStock {
     @Override
     public boolean canCoupleTo(RollingStock rollingStock) throws LogicException {
         if (this.getClass() == rollingStock.getClass()) {
-            String rollingStockSeries = rollingStock.getId().split("-")[0];
-            if (!this.getSeries().equals(rollingStockSeries)) {
+            if (seriesSymbol != ((TrainSet) rollingStock).getSeriesSymbol()) {
                 throw new LogicException("train-set series do not match");
             }
             return true;
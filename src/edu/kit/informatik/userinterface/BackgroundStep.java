@@ -0,0 +1,76 @@
+package edu.kit.informatik.userinterface;
+
+import edu.kit.informatik.exception.LogicException;
+import edu.kit.informatik.railway.Register;
+import edu.kit.informatik.railway.StepProgress;
+import edu.kit.informatik.railway.StepResult;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * A step of all trains that runs on a background thread, so the {@link Session} can keep reading commands.
+ * While it runs, the register must only be accessed by the step itself.
+ *
+ * @author Lukas Probst
+ * @version 1.0
+ */
+public class BackgroundStep {
+    private final StepProgress progress;
+    private final Future<StepResult> result;
+
+    /**
+     * Starts a new step on the given {@code executor}.
+     *
+     * @param register whose trains are moved
+     * @param speed to move all trains by
+     * @param executor that runs the step
+     */
+    BackgroundStep(Register register, long speed, ExecutorService executor) {
+        this.progress = new StepProgress(speed);
+        this.result = executor.submit(() -> register.simulate(speed, progress));
+    }
+
+    /**
+     * Gets the progress of the step.
+     *
+     * @return the progress
+     */
+    public StepProgress getProgress() {
+        return progress;
+    }
+
+    /**
+     * Checks whether the step has finished, either completely or because it has been cancelled.
+     *
+     * @return <code>true</code> if the step has finished, otherwise <code>false</code>
+     */
+    boolean isDone() {
+        return result.isDone();
+    }
+
+    /**
+     * Waits for the step to finish.
+     *
+     * @return the crashes and the positions of the trains after the last completed tick
+     * @throws LogicException if there has been a problem with moving the trains or waiting has been interrupted
+     */
+    StepResult await() throws LogicException {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LogicException("waiting for the step has been interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof LogicException) {
+                throw (LogicException) e.getCause();
+            }
+            // Unexpected exceptions are passed on like in a step in the foreground
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
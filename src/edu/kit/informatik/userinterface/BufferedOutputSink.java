@@ -0,0 +1,39 @@
+package edu.kit.informatik.userinterface;
+
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+
+/**
+ * {@link OutputSink} that buffers all output for the standard output and only writes it when flushed, so a command
+ * that prints many lines costs a single write instead of one per line.
+ *
+ * @author Lukas Probst
+ * @version 1.0
+ */
+public class BufferedOutputSink implements OutputSink {
+    /**
+     * Size of the buffer in bytes. Output beyond this size is written before the next flush.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+    private final PrintStream stream;
+
+    /**
+     * Creates a new buffered sink for the standard output.
+     */
+    public BufferedOutputSink() {
+        this.stream = new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), BUFFER_SIZE),
+                false);
+    }
+
+    @Override
+    public PrintStream getStream() {
+        return stream;
+    }
+
+    @Override
+    public void flush() {
+        stream.flush();
+    }
+}
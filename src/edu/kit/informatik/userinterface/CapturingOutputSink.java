@@ -0,0 +1,52 @@
+package edu.kit.informatik.userinterface;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * {@link OutputSink} that keeps all output in memory, so it can be checked afterwards.
+ *
+ * @author Lukas Probst
+ * @version 1.0
+ */
+public class CapturingOutputSink implements OutputSink {
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private final PrintStream stream = new PrintStream(buffer, false, StandardCharsets.UTF_8);
+
+    @Override
+    public PrintStream getStream() {
+        return stream;
+    }
+
+    @Override
+    public void flush() {
+        stream.flush();
+    }
+
+    /**
+     * Gets all lines that have been captured so far.
+     *
+     * @return the captured lines
+     */
+    public List<String> getLines() {
+        flush();
+        String output = buffer.toString(StandardCharsets.UTF_8);
+        List<String> lines = new ArrayList<>(Arrays.asList(output.split(Pattern.quote(System.lineSeparator()), -1)));
+        // Every line is terminated, which leaves an empty string at the end
+        lines.remove(lines.size() - 1);
+        return lines;
+    }
+
+    /**
+     * Discards all lines that have been captured so far.
+     */
+    public void clear() {
+        flush();
+        buffer.reset();
+    }
+}
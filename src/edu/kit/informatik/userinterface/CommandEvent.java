@@ -0,0 +1,31 @@
+package edu.kit.informatik.userinterface;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder event for the execution of a single command in a {@link Session}.
+ *
+ * @author Lukas Probst
+ * @version 1.0
+ */
+@Name("edu.kit.informatik.Command")
+@Label("Command")
+@Category({"Railway", "Session"})
+@Description("Execution of a single command")
+class CommandEvent extends Event {
+    @Label("Command")
+    String command;
+
+    /**
+     * Creates a new event for the command with the given {@code name}.
+     *
+     * @param name of the command
+     */
+    CommandEvent(String name) {
+        this.command = name;
+    }
+}
@@ -0,0 +1,229 @@
+package edu.kit.informatik.userinterface;
+
+import edu.kit.informatik.exception.InvalidInputException;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the latency, the number of calls and the allocated bytes of every command executed in a {@link Session}.
+ * Latencies are kept in a histogram with logarithmic buckets, so recording never allocates and percentiles
+ * are accurate to within 12.5%.
+ *
+ * @author Lukas Probst
+ * @version 1.0
+ */
+public class CommandStatistics {
+    /**
+     * Time between two dumps of the statistics to the dump file.
+     */
+    private static final long DUMP_INTERVAL = TimeUnit.MINUTES.toNanos(1);
+    /**
+     * Number of sub-buckets per power of two. Must be a power of two itself.
+     */
+    private static final int SUB_BUCKETS = 8;
+    /**
+     * Number of bits needed to address the sub-buckets.
+     */
+    private static final int SUB_BUCKET_BITS = Integer.numberOfTrailingZeros(SUB_BUCKETS);
+    /**
+     * Values below this threshold get a bucket of their own.
+     */
+    private static final int LINEAR_BUCKETS = 2 * SUB_BUCKETS;
+    /**
+     * Exponent of the smallest value that does not get a bucket of its own.
+     */
+    private static final int FIRST_EXPONENT = Integer.numberOfTrailingZeros(LINEAR_BUCKETS);
+    /**
+     * Total number of buckets, enough for every non-negative <code>long</code>.
+     */
+    private static final int NUMBER_OF_BUCKETS = LINEAR_BUCKETS + (Long.SIZE - 1 - FIRST_EXPONENT) * SUB_BUCKETS;
+    private final Map<String, Entry> entries;
+    private final com.sun.management.ThreadMXBean allocationCounter;
+    private final String dumpPath;
+    private long lastDump;
+
+    /**
+     * Creates new, empty command statistics.
+     *
+     * @param dumpPath of the file the statistics are periodically written to or <code>null</code> to disable dumps
+     */
+    public CommandStatistics(String dumpPath) {
+        this.entries = new TreeMap<>();
+        this.dumpPath = dumpPath;
+        this.lastDump = System.nanoTime();
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if (threadBean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) threadBean).isThreadAllocatedMemorySupported()) {
+            this.allocationCounter = (com.sun.management.ThreadMXBean) threadBean;
+            this.allocationCounter.setThreadAllocatedMemoryEnabled(true);
+        } else {
+            this.allocationCounter = null;
+        }
+    }
+
+    /**
+     * Gets the number of bytes allocated by the current thread so far.
+     *
+     * @return the allocated bytes or 0 if the JVM does not support allocation counters
+     */
+    public long allocatedBytes() {
+        if (allocationCounter == null) {
+            return 0;
+        }
+        return allocationCounter.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Records one execution of the command with the given {@code name} and dumps the statistics if the
+     * {@link #DUMP_INTERVAL} has elapsed.
+     *
+     * @param name of the command
+     * @param nanos the command took
+     * @param allocatedBytes during the execution of the command
+     */
+    public void record(String name, long nanos, long allocatedBytes) {
+        entries.computeIfAbsent(name, x -> new Entry()).record(Math.max(0, nanos), allocatedBytes);
+        long now = System.nanoTime();
+        if (dumpPath != null && now - lastDump >= DUMP_INTERVAL) {
+            lastDump = now;
+            try {
+                dump();
+            } catch (InvalidInputException e) {
+                // Dumps are best effort, the next interval simply tries again
+                return;
+            }
+        }
+    }
+
+    /**
+     * Writes the current statistics to the dump file. Nothing happens if dumps are disabled.
+     *
+     * @throws InvalidInputException if the dump file cannot be written
+     */
+    public void dump() throws InvalidInputException {
+        if (dumpPath == null) {
+            return;
+        }
+        try (Writer writer = Files.newBufferedWriter(Paths.get(dumpPath), StandardCharsets.UTF_8)) {
+            for (String line : format()) {
+                writer.write(line);
+                writer.write(System.lineSeparator());
+            }
+        } catch (IOException e) {
+            throw new InvalidInputException("cannot write statistics to " + dumpPath);
+        }
+    }
+
+    /**
+     * Formats the statistics of all commands that have been recorded so far, sorted by the command name.
+     *
+     * @return one line per command of the format <b>[command]: [calls] calls, p50 [latency], p99 [latency],
+     *  max [latency], [bytes] bytes allocated</b> where all latencies are in microseconds
+     */
+    public List<String> format() {
+        List<String> result = new ArrayList<>();
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            Entry statistics = entry.getValue();
+            result.add(entry.getKey() + ": " + statistics.calls + " calls"
+                    + ", p50 " + toMicros(statistics.percentile(0.5)) + "us"
+                    + ", p99 " + toMicros(statistics.percentile(0.99)) + "us"
+                    + ", max " + toMicros(statistics.max) + "us"
+                    + ", " + (allocationCounter == null ? "n/a" : String.valueOf(statistics.allocatedBytes))
+                    + " bytes allocated");
+        }
+        return result;
+    }
+
+    /**
+     * Converts nanoseconds to microseconds.
+     *
+     * @param nanos to be converted
+     * @return the microseconds
+     */
+    private static long toMicros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    /**
+     * Gets the index of the bucket that contains the {@code value}.
+     *
+     * @param value non-negative value to get the bucket of
+     * @return the index of the bucket
+     */
+    private static int bucketOf(long value) {
+        if (value < LINEAR_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR_BUCKETS + (exponent - FIRST_EXPONENT) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Gets the largest value that belongs to the bucket with the given {@code index}.
+     *
+     * @param index of the bucket
+     * @return the largest value of the bucket
+     */
+    private static long upperBoundOf(int index) {
+        if (index < LINEAR_BUCKETS) {
+            return index;
+        }
+        int exponent = (index - LINEAR_BUCKETS) / SUB_BUCKETS + FIRST_EXPONENT;
+        int subBucket = (index - LINEAR_BUCKETS) % SUB_BUCKETS;
+        long lowerBound = (long) (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+        return lowerBound + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+    /**
+     * Statistics of a single command.
+     */
+    private static final class Entry {
+        private final long[] buckets = new long[NUMBER_OF_BUCKETS];
+        private long calls;
+        private long max;
+        private long allocatedBytes;
+
+        /**
+         * Records one execution.
+         *
+         * @param nanos the execution took
+         * @param allocated bytes during the execution
+         */
+        private void record(long nanos, long allocated) {
+            buckets[bucketOf(nanos)]++;
+            calls++;
+            max = Math.max(max, nanos);
+            allocatedBytes += allocated;
+        }
+
+        /**
+         * Gets the latency below which the given fraction of all executions lies.
+         *
+         * @param fraction between 0 and 1
+         * @return the latency in nanoseconds
+         */
+        private long percentile(double fraction) {
+            long rank = Math.max(1, (long) Math.ceil(fraction * calls));
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= rank) {
+                    return Math.min(max, upperBoundOf(i));
+                }
+            }
+            return max;
+        }
+    }
+}
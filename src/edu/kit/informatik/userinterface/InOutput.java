@@ -27,36 +27,111 @@ public final class InOutput {
      * Separates the command from its potential arguments.
      */
     public static final String COMMAND_SEPARATOR = " ";
+    /**
+     * Marks an integer that cannot be represented as a 32-bit integer.
+     */
+    private static final long OUT_OF_RANGE = Long.MIN_VALUE;
     // Precompile the patterns
     /**
-     * Pattern for a point: (<x-coordinate>,<y-coordinate>).
+     * Pattern for name and series which only allows characters from all unicode letter categories.
      */
-    private static final Pattern POINT_PATTERN = Pattern.compile("\\(([+-]?[0-9]+),([+-]?[0-9]+)\\)");
+    private static final Pattern NAME_SERIES_PATTERN = Pattern.compile("[\\p{L}0-9]+");
+
     /**
-     * Pattern for two points: (<x-coordinate>,<y-coordinate>),(<x-coordinate>,<y-coordinate>).
+     * This helper class is not meant to be instantiated.
      */
-    private static final Pattern TWO_POINTS_PATTERN = Pattern.compile(POINT_PATTERN + "," + POINT_PATTERN);
+    private InOutput() {
+    }
+
     /**
-     * Pattern for a direction vector: <x-coordinate>,<y-coordinate>.
+     * Returns <code>true</code> if the character is an ASCII digit.
+     *
+     * @param character to be checked
+     * @return <code>true</code> if the character is between '0' and '9'
      */
-    private static final Pattern DIRECTION_PATTERN = Pattern.compile("([+-]?[0-9]+),([+-]??[0-9]+)");
+    private static boolean isDigit(final char character) {
+        return character >= '0' && character <= '9';
+    }
+
     /**
-     * Pattern for a boolean which can be either true or false.
+     * Skips an integer of the form <code>[+-]?[0-9]+</code> starting at {@code from}.
+     *
+     * @param input to be scanned
+     * @param from index of the first character of the integer
+     * @return the index after the last digit or -1 if there is no integer at {@code from}
      */
-    private static final Pattern BOOLEAN_PATTERN = Pattern.compile("true|false");
+    private static int skipInteger(final String input, final int from) {
+        int index = from;
+        if (index < input.length() && (input.charAt(index) == '+' || input.charAt(index) == '-')) {
+            index++;
+        }
+        final int firstDigit = index;
+        while (index < input.length() && isDigit(input.charAt(index))) {
+            index++;
+        }
+        return index == firstDigit ? -1 : index;
+    }
+
     /**
-     * Pattern for name and series which only allows characters from all unicode letter categories.
+     * Skips a point of the form <code>(&lt;x-coordinate&gt;,&lt;y-coordinate&gt;)</code> starting at {@code from}.
+     *
+     * @param input to be scanned
+     * @param from index of the opening parenthesis
+     * @return the index after the closing parenthesis or -1 if there is no point at {@code from}
      */
-    private static final Pattern NAME_SERIES_PATTERN = Pattern.compile("[\\p{L}0-9]+");
+    private static int skipPoint(final String input, final int from) {
+        if (from < 0 || from >= input.length() || input.charAt(from) != '(') {
+            return -1;
+        }
+        final int comma = skipInteger(input, from + 1);
+        if (comma < 0 || comma >= input.length() || input.charAt(comma) != ',') {
+            return -1;
+        }
+        final int closing = skipInteger(input, comma + 1);
+        if (closing < 0 || closing >= input.length() || input.charAt(closing) != ')') {
+            return -1;
+        }
+        return closing + 1;
+    }
+
     /**
-     * Pattern for a natural number excluding zero.
+     * Converts the already scanned integer between {@code from} and {@code to} without creating a substring.
+     *
+     * @param input containing the integer
+     * @param from index of the first character of the integer
+     * @param to index after the last digit of the integer
+     * @return the value of the integer or {@link #OUT_OF_RANGE} if it is not a 32-bit integer
      */
-    private static final Pattern NUMBER_PATTERN = Pattern.compile("[+]?[0-9]*[1-9][0-9]*");
+    private static long toInteger(final String input, final int from, final int to) {
+        final boolean negative = input.charAt(from) == '-';
+        int index = negative || input.charAt(from) == '+' ? from + 1 : from;
+        long value = 0;
+        for (; index < to; index++) {
+            value = value * 10 + (input.charAt(index) - '0');
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                return OUT_OF_RANGE;
+            }
+        }
+        value = negative ? -value : value;
+        return value < Integer.MIN_VALUE || value > Integer.MAX_VALUE ? OUT_OF_RANGE : value;
+    }
 
     /**
-     * This helper class is not meant to be instantiated.
+     * Converts the already scanned point starting at {@code from}.
+     *
+     * @param input containing the point
+     * @param from index of the opening parenthesis
+     * @return new {@link Point} with the given components
+     * @throws InvalidInputException if the coordinates are not 32-bit integers
      */
-    private InOutput() {
+    private static Point toPoint(final String input, final int from) throws InvalidInputException {
+        final int comma = skipInteger(input, from + 1);
+        final long firstComponent = toInteger(input, from + 1, comma);
+        final long secondComponent = toInteger(input, comma + 1, skipInteger(input, comma + 1));
+        if (firstComponent == OUT_OF_RANGE || secondComponent == OUT_OF_RANGE) {
+            throw new InvalidInputException("coordinates of a point must be 32-bit integers");
+        }
+        return new Point(firstComponent, secondComponent);
     }
 
     /**
@@ -67,16 +142,10 @@ public final class InOutput {
      * @throws InvalidInputException if the input format is incorrect or the coordinates are not 32-bit integers
      */
     public static Point parsePoint(final String input) throws InvalidInputException {
-        final Matcher matcher = POINT_PATTERN.matcher(input);
-        if (!matcher.matches()) {
+        if (skipPoint(input, 0) != input.length()) {
             throw new InvalidInputException("a point must be entered as follows '(<x-coordinate>,<y-coordinate>)'");
         }
-        try {
-            return new Point(Integer.parseInt(matcher.group(1)),
-                    Integer.parseInt(matcher.group(2)));
-        } catch (NumberFormatException e) {
-            throw new InvalidInputException("coordinates of a point must be 32-bit integers");
-        }
+        return toPoint(input, 0);
     }
 
     /**
@@ -87,18 +156,13 @@ public final class InOutput {
      * @throws InvalidInputException if the input format is incorrect or the coordinates are not 32-bit integers
      */
     public static List<Point> parseTwoPoints(final String input) throws InvalidInputException {
-        final Matcher matcher = TWO_POINTS_PATTERN.matcher(input);
-        if (!matcher.matches()) {
+        final int comma = skipPoint(input, 0);
+        if (comma < 0 || comma >= input.length() || input.charAt(comma) != ','
+                || skipPoint(input, comma + 1) != input.length()) {
             throw new InvalidInputException("two endpoints must be entered as follows "
                     + "'(<x-coordinate>,<y-coordinate>),(<x-coordinate>,<y-coordinate>)'");
         }
-        try {
-            Point firstPoint = new Point(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
-            Point secondPoint = new Point(Integer.parseInt(matcher.group(3)), Integer.parseInt(matcher.group(4)));
-            return Arrays.asList(firstPoint, secondPoint);
-        } catch (NumberFormatException e) {
-            throw new InvalidInputException("coordinates of a point must be 32-bit integers");
-        }
+        return Arrays.asList(toPoint(input, 0), toPoint(input, comma + 1));
     }
 
     /**
@@ -109,11 +173,13 @@ public final class InOutput {
      * @throws InvalidInputException if the input format is incorrect
      */
     public static boolean toBoolean(final String input) throws InvalidInputException {
-        final Matcher matcher = BOOLEAN_PATTERN.matcher(input);
-        if (!matcher.matches()) {
+        if ("true".equals(input)) {
+            return true;
+        }
+        if (!"false".equals(input)) {
             throw new InvalidInputException(input + " is not a valid boolean. Either use 'true' or 'false'");
         }
-        return Boolean.parseBoolean(input);
+        return false;
     }
 
     /**
@@ -124,17 +190,18 @@ public final class InOutput {
      * @throws InvalidInputException if the input format is incorrect or the coordinates are not 32-bit integers
      */
     public static Point parseVector(final String input) throws InvalidInputException {
-        final Matcher matcher = DIRECTION_PATTERN.matcher(input);
-        if (!matcher.matches()) {
+        final int comma = skipInteger(input, 0);
+        if (comma < 0 || comma >= input.length() || input.charAt(comma) != ','
+                || skipInteger(input, comma + 1) != input.length()) {
             throw new InvalidInputException(input + " is not a valid direction vector. Expect input of the form "
                     + "'<x-coordinate>,<y-coordinate>'");
         }
-        String[] inputSplit = input.split(",");
-        try {
-            return new Point(Integer.parseInt(inputSplit[0]), Integer.parseInt(inputSplit[1]));
-        } catch (NumberFormatException e) {
+        final long firstComponent = toInteger(input, 0, comma);
+        final long secondComponent = toInteger(input, comma + 1, input.length());
+        if (firstComponent == OUT_OF_RANGE || secondComponent == OUT_OF_RANGE) {
             throw new InvalidInputException("coordinates of the direction vector must be 32-bit integers");
         }
+        return new Point(firstComponent, secondComponent);
     }
 
     /**
@@ -146,15 +213,40 @@ public final class InOutput {
      * @throws InvalidInputException if the input format is incorrect or the number is not a 32-bit integer
      */
     public static int parseNumber(final String input, final String description) throws InvalidInputException {
-        final Matcher matcher = NUMBER_PATTERN.matcher(input);
-        if (!matcher.matches()) {
+        // Only a leading plus sign is allowed and at least one digit must not be zero
+        final int end = input.startsWith("-") ? -1 : skipInteger(input, 0);
+        boolean isNotZero = false;
+        for (int i = 0; i < end && !isNotZero; i++) {
+            isNotZero = input.charAt(i) >= '1' && input.charAt(i) <= '9';
+        }
+        if (end != input.length() || !isNotZero) {
             throw new InvalidInputException(description + " must be a natural number excluding zero");
         }
+        final long number = toInteger(input, 0, end);
+        if (number == OUT_OF_RANGE) {
+            throw new InvalidInputException(description + " must be a 32-bit integer");
+        }
+        return (int) number;
+    }
+
+    /**
+     * Parses the speed of a step, whose absolute value is the number of ticks.
+     *
+     * @param input to be parsed
+     * @return the speed
+     * @throws InvalidInputException if the input is not a 64-bit integer or its absolute value is not one
+     */
+    public static long parseSpeed(final String input) throws InvalidInputException {
+        final long speed;
         try {
-            return Integer.parseInt(input);
+            speed = Long.parseLong(input);
         } catch (NumberFormatException e) {
-            throw new InvalidInputException(description + " must be a 32-bit integer");
+            throw new InvalidInputException("speed has to be a 64-bit integer");
+        }
+        if (speed == Long.MIN_VALUE) {
+            throw new InvalidInputException("the absolute value of the speed has to be a 64-bit integer");
         }
+        return speed;
     }
 
     /**
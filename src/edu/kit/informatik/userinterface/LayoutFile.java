@@ -0,0 +1,368 @@
+package edu.kit.informatik.userinterface;
+
+import edu.kit.informatik.exception.InvalidInputException;
+import edu.kit.informatik.exception.LogicException;
+import edu.kit.informatik.railway.Track;
+import edu.kit.informatik.util.Point;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Helper class to read and write layouts of a {@link edu.kit.informatik.railway.RailNetwork} from and to files.
+ * A layout file is either a text file with one track per line or a compact binary file.
+ *
+ * <p>Each line of a text file has one of the following formats:
+ * <ul>
+ *     <li><b>t [trackID] [startpoint] -> [endpoint]</b></li>
+ *     <li><b>s [trackID] [startpoint] -> [endpoint1],[endpoint2]</b> optionally followed by the point the switch
+ *     is set to</li>
+ * </ul>
+ * Empty lines are ignored.
+ *
+ * <p>A binary file starts with {@link #MAGIC_NUMBER} and {@link #VERSION}, followed by the number of tracks.
+ * Each track consists of its ID, the number of endpoints, the coordinates of all points and the index
+ * of the endpoint the track is switched to (0 if it is not set). All values are 32-bit integers
+ * except the number of endpoints and the switch index which are bytes.
+ *
+ * @author Lukas Probst
+ * @version 1.0
+ */
+public final class LayoutFile {
+    /**
+     * Marks the beginning of a binary layout file ("RLAY").
+     */
+    public static final int MAGIC_NUMBER = 0x524C4159;
+    /**
+     * Version of the binary layout format.
+     */
+    public static final int VERSION = 1;
+    /**
+     * Prefix of a normal track in a text layout file.
+     */
+    public static final String TRACK_PREFIX = "t";
+    /**
+     * Prefix of a switch in a text layout file.
+     */
+    public static final String SWITCH_PREFIX = "s";
+
+    /**
+     * This helper class is not meant to be instantiated.
+     */
+    private LayoutFile() {
+    }
+
+    /**
+     * Reads all tracks of the layout file with the given {@code path}. The format is detected automatically.
+     *
+     * @param path of the layout file
+     * @return all tracks of the layout
+     * @throws InvalidInputException if the file cannot be read or contains syntax errors
+     */
+    public static List<Track> read(final String path) throws InvalidInputException {
+        try (InputStream input = new BufferedInputStream(Files.newInputStream(Paths.get(path)))) {
+            final DataInputStream data = new DataInputStream(input);
+            input.mark(Integer.BYTES);
+            final byte[] header = new byte[Integer.BYTES];
+            final int headerLength = input.read(header);
+            final boolean isBinary = headerLength == Integer.BYTES
+                    && ((header[0] & 0xFF) << 24 | (header[1] & 0xFF) << 16 | (header[2] & 0xFF) << 8
+                    | (header[3] & 0xFF)) == MAGIC_NUMBER;
+            if (isBinary) {
+                return readBinary(data);
+            }
+            input.reset();
+            return readText(new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8)));
+        } catch (IOException e) {
+            throw new InvalidInputException("cannot read layout file " + path);
+        }
+    }
+
+    /**
+     * Writes all {@code tracks} to a text layout file which can be read again by {@link #read(String)}.
+     * Unlike {@link Track#toString()}, the switch position is written instead of the length.
+     *
+     * @param path of the layout file
+     * @param tracks to be written
+     * @throws InvalidInputException if the file cannot be written
+     */
+    public static void writeText(final String path, final Collection<Track> tracks) throws InvalidInputException {
+        try (Writer writer = Files.newBufferedWriter(Paths.get(path), StandardCharsets.UTF_8)) {
+            // Reused for every number to avoid creating strings per track
+            final char[] digits = new char[Long.toString(Long.MIN_VALUE).length()];
+            for (final Track track : tracks) {
+                final boolean isSwitch = track.isSwitch(track);
+                writer.write(isSwitch ? SWITCH_PREFIX : TRACK_PREFIX);
+                writer.write(InOutput.COMMAND_SEPARATOR);
+                writeNumber(writer, track.getId(), digits);
+                writer.write(InOutput.COMMAND_SEPARATOR);
+                writePoint(writer, track.getStartPoint(), digits);
+                writer.write(InOutput.COMMAND_SEPARATOR);
+                writer.write(InOutput.ARROW_SEPARATOR);
+                writer.write(InOutput.COMMAND_SEPARATOR);
+                final List<Point> endPoints = track.getEndPoints();
+                for (int i = 0; i < endPoints.size(); i++) {
+                    if (i > 0) {
+                        writer.write(',');
+                    }
+                    writePoint(writer, endPoints.get(i), digits);
+                }
+                if (isSwitch && track.getSwitchedTo() != null) {
+                    writer.write(InOutput.COMMAND_SEPARATOR);
+                    writePoint(writer, track.getSwitchedTo(), digits);
+                }
+                writer.write(System.lineSeparator());
+            }
+        } catch (IOException e) {
+            throw new InvalidInputException("cannot write layout file " + path);
+        }
+    }
+
+    /**
+     * Writes all {@code tracks} to a binary layout file which can be read again by {@link #read(String)}.
+     *
+     * @param path of the layout file
+     * @param tracks to be written
+     * @throws InvalidInputException if the file cannot be written
+     */
+    public static void writeBinary(final String path, final Collection<Track> tracks) throws InvalidInputException {
+        try (DataOutputStream data = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(Paths.get(path))))) {
+            data.writeInt(MAGIC_NUMBER);
+            data.writeInt(VERSION);
+            data.writeInt(tracks.size());
+            for (final Track track : tracks) {
+                final List<Point> points = track.getPoints();
+                data.writeInt(track.getId());
+                data.writeByte(points.size() - 1);
+                for (final Point point : points) {
+                    data.writeInt((int) point.getFirstComponent());
+                    data.writeInt((int) point.getSecondComponent());
+                }
+                // Normal tracks are always set to their only endpoint
+                data.writeByte(track.getSwitchedTo() == null ? 0 : points.indexOf(track.getSwitchedTo()));
+            }
+        } catch (IOException e) {
+            throw new InvalidInputException("cannot write layout file " + path);
+        }
+    }
+
+    /**
+     * Writes a point in the format <b>(x,y)</b>.
+     *
+     * @param writer to write to
+     * @param point to be written
+     * @param digits buffer that is large enough for every <code>long</code>
+     * @throws IOException if the point cannot be written
+     */
+    private static void writePoint(final Writer writer, final Point point, final char[] digits) throws IOException {
+        writer.write('(');
+        writeNumber(writer, point.getFirstComponent(), digits);
+        writer.write(',');
+        writeNumber(writer, point.getSecondComponent(), digits);
+        writer.write(')');
+    }
+
+    /**
+     * Writes the decimal representation of a number without creating a string.
+     *
+     * @param writer to write to
+     * @param number to be written
+     * @param digits buffer that is large enough for every <code>long</code>
+     * @throws IOException if the number cannot be written
+     */
+    private static void writeNumber(final Writer writer, final long number, final char[] digits) throws IOException {
+        int index = digits.length;
+        long remaining = number;
+        // Works on negative values so that Long.MIN_VALUE does not overflow
+        if (remaining > 0) {
+            remaining = -remaining;
+        }
+        do {
+            digits[--index] = (char) ('0' - remaining % 10);
+            remaining /= 10;
+        } while (remaining != 0);
+        if (number < 0) {
+            digits[--index] = '-';
+        }
+        writer.write(digits, index, digits.length - index);
+    }
+
+    /**
+     * Reads a binary layout whose magic number has already been consumed.
+     *
+     * @param data to read the layout from
+     * @return all tracks of the layout
+     * @throws IOException if the file cannot be read
+     * @throws InvalidInputException if the file is not a valid binary layout
+     */
+    private static List<Track> readBinary(final DataInputStream data) throws IOException, InvalidInputException {
+        if (data.readInt() != VERSION) {
+            throw new InvalidInputException("unsupported layout file version");
+        }
+        final int numberOfTracks = data.readInt();
+        if (numberOfTracks < 0) {
+            throw new InvalidInputException("invalid number of tracks in layout file");
+        }
+        // The number of tracks is not trusted for presizing, as it may be far larger than the file
+        final List<Track> layout = new ArrayList<>();
+        final List<String> violations = new ArrayList<>();
+        for (int i = 0; i < numberOfTracks; i++) {
+            try {
+                layout.add(readTrack(data, violations));
+            } catch (EOFException e) {
+                throw new InvalidInputException("invalid number of tracks in layout file, it ends after " + i
+                        + " of " + numberOfTracks + " tracks");
+            }
+        }
+        if (data.read() != -1) {
+            violations.add("unexpected data after the last track");
+        }
+        checkViolations(violations);
+        return layout;
+    }
+
+    /**
+     * Reads a single track of a binary layout.
+     *
+     * @param data to read the track from
+     * @param violations to add invalid IDs and switch positions to
+     * @return the read track
+     * @throws IOException if the file cannot be read or ends within the track
+     * @throws InvalidInputException if the number of endpoints is invalid
+     */
+    private static Track readTrack(final DataInputStream data, final List<String> violations)
+            throws IOException, InvalidInputException {
+        final int trackId = data.readInt();
+        if (trackId <= 0) {
+            violations.add("track with ID " + trackId + ": track ID must be a natural number excluding zero");
+        }
+        final int numberOfEndPoints = data.readByte();
+        if (numberOfEndPoints < 1 || numberOfEndPoints > Track.MAX_CONNECTIONS) {
+            throw new InvalidInputException("track with ID " + trackId + ": invalid number of endpoints");
+        }
+        final Point[] points = new Point[numberOfEndPoints + 1];
+        for (int j = 0; j < points.length; j++) {
+            points[j] = new Point(data.readInt(), data.readInt());
+        }
+        final int switchedTo = data.readByte();
+        final Track track = new Track(trackId, Arrays.asList(points));
+        if (switchedTo < 0 || switchedTo > numberOfEndPoints) {
+            violations.add("track with ID " + trackId + ": invalid switch position");
+        } else if (switchedTo > 0) {
+            setSwitch(track, points[switchedTo], violations, "track with ID " + trackId);
+        }
+        return track;
+    }
+
+    /**
+     * Reads a text layout line by line.
+     *
+     * @param reader to read the layout from
+     * @return all tracks of the layout
+     * @throws IOException if the file cannot be read
+     * @throws InvalidInputException if the file contains syntax errors
+     */
+    private static List<Track> readText(final BufferedReader reader) throws IOException, InvalidInputException {
+        final List<Track> layout = new ArrayList<>();
+        final List<String> violations = new ArrayList<>();
+        int lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isEmpty()) {
+                continue;
+            }
+            try {
+                layout.add(parseLine(line, violations, "line " + lineNumber));
+            } catch (InvalidInputException e) {
+                violations.add("line " + lineNumber + ": " + e.getMessage());
+            }
+        }
+        checkViolations(violations);
+        return layout;
+    }
+
+    /**
+     * Parses one line of a text layout.
+     *
+     * @param line to be parsed
+     * @param violations to add invalid switch positions to
+     * @param location of the line used for the violations
+     * @return the parsed track
+     * @throws InvalidInputException if the line contains syntax errors
+     */
+    private static Track parseLine(final String line, final List<String> violations, final String location)
+            throws InvalidInputException {
+        final String[] tokens = line.split(InOutput.COMMAND_SEPARATOR);
+        final boolean isSwitch = SWITCH_PREFIX.equals(tokens[0]);
+        if (!isSwitch && !TRACK_PREFIX.equals(tokens[0])) {
+            throw new InvalidInputException("a line must start with '" + TRACK_PREFIX + "' or '"
+                    + SWITCH_PREFIX + "'");
+        }
+        if (tokens.length != 5 && !(isSwitch && tokens.length == 6)) {
+            throw new InvalidInputException("invalid number of arguments");
+        }
+        final int trackId = InOutput.parseNumber(tokens[1], "track ID");
+        final Point startPoint = InOutput.parsePoint(tokens[2]);
+        if (!InOutput.ARROW_SEPARATOR.equals(tokens[3])) {
+            throw new InvalidInputException("fourth argument must be '->'. Instead you typed: " + tokens[3]);
+        }
+        final Track track;
+        if (isSwitch) {
+            final List<Point> endPoints = InOutput.parseTwoPoints(tokens[4]);
+            track = new Track(trackId, Arrays.asList(startPoint, endPoints.get(0), endPoints.get(1)));
+            if (tokens.length == 6) {
+                setSwitch(track, InOutput.parsePoint(tokens[5]), violations, location);
+            }
+        } else {
+            track = new Track(trackId, Arrays.asList(startPoint, InOutput.parsePoint(tokens[4])));
+        }
+        return track;
+    }
+
+    /**
+     * Sets the switch position of a freshly read track and records a violation if this is not possible.
+     *
+     * @param track to be set
+     * @param point to switch to
+     * @param violations to add the violation to
+     * @param location of the track used for the violation
+     */
+    private static void setSwitch(final Track track, final Point point, final List<String> violations,
+                                  final String location) {
+        try {
+            track.setSwitchedTo(point);
+        } catch (LogicException e) {
+            violations.add(location + ": switch position " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reports all {@code violations} together.
+     *
+     * @param violations found while reading a layout file
+     * @throws InvalidInputException if there is at least one violation
+     */
+    private static void checkViolations(final List<String> violations) throws InvalidInputException {
+        if (!violations.isEmpty()) {
+            throw new InvalidInputException("invalid layout file with " + violations.size() + " violation(s)"
+                    + System.lineSeparator() + String.join(System.lineSeparator(), violations));
+        }
+    }
+}
@@ -1,5 +1,10 @@
 package edu.kit.informatik.userinterface;
 
+import edu.kit.informatik.Terminal;
+import edu.kit.informatik.util.Tracer;
+
+import java.io.IOException;
+
 /**
  * The program's main entry point.
  *
@@ -7,13 +12,65 @@ package edu.kit.informatik.userinterface;
  * @version 1.0
  */
 public class Main {
+    /**
+     * Argument that enables the recording of {@link CommandStatistics}, optionally followed by a dump file.
+     */
+    private static final String STATISTICS_ARGUMENT = "--stats";
+    /**
+     * Argument that enables the {@link Tracer}, followed by the trace file.
+     */
+    private static final String TRACE_ARGUMENT = "--trace";
+    /**
+     * Argument that selects the {@link OutputSink}, followed by {@value BUFFERED_OUTPUT}, {@value DIRECT_OUTPUT}
+     * or {@value NULL_OUTPUT}.
+     */
+    private static final String OUTPUT_ARGUMENT = "--output";
+    private static final String BUFFERED_OUTPUT = "buffered";
+    private static final String DIRECT_OUTPUT = "direct";
+    private static final String NULL_OUTPUT = "null";
+
     /**
      * Initiates user input by creating and running a new {@link Session}.
      *
-     * @param args the command line arguments
+     * @param args the command line arguments. {@value STATISTICS_ARGUMENT} records command statistics and
+     *  periodically writes them to the file that follows, if any. {@value TRACE_ARGUMENT} writes a Chrome trace
+     *  of all commands and steps to the file that follows. {@value OUTPUT_ARGUMENT} selects the output, which is
+     *  buffered until the end of each command by default
      */
     public static void main(String[] args) {
         Session session = new Session();
+        OutputSink output = new BufferedOutputSink();
+        for (int i = 0; i < args.length; i++) {
+            boolean hasValue = i + 1 < args.length && !args[i + 1].startsWith("--");
+            if (STATISTICS_ARGUMENT.equals(args[i])) {
+                session.enableStatistics(hasValue ? args[++i] : null);
+            } else if (TRACE_ARGUMENT.equals(args[i]) && hasValue) {
+                try {
+                    Tracer.start(args[++i]);
+                } catch (IOException e) {
+                    Terminal.printError("cannot create trace file " + args[i]);
+                }
+            } else if (OUTPUT_ARGUMENT.equals(args[i]) && hasValue) {
+                switch (args[++i]) {
+                    case BUFFERED_OUTPUT:
+                        output = new BufferedOutputSink();
+                        break;
+                    case DIRECT_OUTPUT:
+                        output = null;
+                        break;
+                    case NULL_OUTPUT:
+                        output = new NullOutputSink();
+                        break;
+                    default:
+                        Terminal.printError("unknown output " + args[i]);
+                }
+            } else {
+                Terminal.printError("unknown argument " + args[i]);
+            }
+        }
+        if (output != null) {
+            session.setOutput(output);
+        }
         session.run();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,23 @@
+package edu.kit.informatik.userinterface;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/**
+ * {@link OutputSink} that drops all output, which is useful for benchmarks.
+ *
+ * @author Lukas Probst
+ * @version 1.0
+ */
+public class NullOutputSink implements OutputSink {
+    private final PrintStream stream = new PrintStream(OutputStream.nullOutputStream());
+
+    @Override
+    public PrintStream getStream() {
+        return stream;
+    }
+
+    @Override
+    public void flush() {
+    }
+}
@@ -0,0 +1,25 @@
+package edu.kit.informatik.userinterface;
+
+import java.io.PrintStream;
+
+/**
+ * Destination of everything that is printed by the {@link edu.kit.informatik.Terminal}. The terminal itself
+ * writes to {@link System#out}, so a sink is installed by redirecting the standard output to its stream.
+ *
+ * @author Lukas Probst
+ * @version 1.0
+ */
+public interface OutputSink {
+
+    /**
+     * Gets the stream that receives all output.
+     *
+     * @return the stream of the sink
+     */
+    PrintStream getStream();
+
+    /**
+     * Passes all buffered output on. The {@link Session} calls this at every command boundary.
+     */
+    void flush();
+}
@@ -1,12 +1,18 @@
 package edu.kit.informatik.userinterface;
 
 import edu.kit.informatik.exception.InvalidInputException;
+import edu.kit.informatik.exception.LogicException;
 import edu.kit.informatik.railway.Register;
+import edu.kit.informatik.railway.StepResult;
 import edu.kit.informatik.Terminal;
 import edu.kit.informatik.userinterface.commands.Command;
 import edu.kit.informatik.userinterface.commands.CommandParser;
+import edu.kit.informatik.util.Tracer;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * User input and output are handled here. Exception handling for invalid input also takes place here.
@@ -18,31 +24,188 @@ import java.util.List;
 public class Session {
     private boolean running = true;
     private Register register;
+    /**
+     * Statistics of all executed commands, <code>null</code> if they are not recorded.
+     */
+    private CommandStatistics statistics;
+    /**
+     * Sink of all output, <code>null</code> if the output is written directly.
+     */
+    private OutputSink output;
+    /**
+     * Runs steps in the background, created when the first one is started.
+     */
+    private ExecutorService stepExecutor;
+    /**
+     * The step that runs in the background, <code>null</code> if there is none or it has been reported.
+     */
+    private BackgroundStep backgroundStep;
+
+    /**
+     * Enables the recording of {@link CommandStatistics} for all commands that are executed from now on.
+     *
+     * @param dumpPath of the file the statistics are periodically written to or <code>null</code> to disable dumps
+     */
+    public void enableStatistics(String dumpPath) {
+        statistics = new CommandStatistics(dumpPath);
+    }
+
+    /**
+     * Redirects all output of the {@link Terminal} to the given {@code sink}, which is flushed after every command.
+     *
+     * @param sink to receive the output
+     */
+    public void setOutput(OutputSink sink) {
+        output = sink;
+        System.setOut(sink.getStream());
+    }
 
     /**
      * After the session is started, this method remains in a loop until the {@link this#terminate()} method is called.
      */
     public void run() {
+        try {
+            runCommands();
+        } finally {
+            if (output != null) {
+                output.flush();
+            }
+        }
+    }
+
+    /**
+     * Reads and executes commands until the {@link this#terminate()} method is called.
+     */
+    private void runCommands() {
         register = new Register();
         while (running) {
             String input = Terminal.readLine();
+            reportBackgroundStep();
             try {
-                final List<Command> commands = CommandParser.initialiseCommands();
-                final Command command = commands.stream()
-                        .filter(cmd -> (input.startsWith(cmd.getName()) && (input.length() == cmd.getName().length()
-                                || input.charAt(cmd.getName().length()) == ' ')))
-                        .findAny()
-                        .orElseThrow(() -> new InvalidInputException("unknown command"));
+                final Command command = CommandParser.findCommand(input);
+                if (backgroundStep != null && !command.isAllowedDuringBackgroundStep()) {
+                    throw new InvalidInputException("a step is running in the background, wait for it or cancel it");
+                }
+                // Only measure if statistics are enabled to keep the overhead negligible otherwise
+                final long start = statistics == null ? 0 : System.nanoTime();
+                final long allocated = statistics == null ? 0 : statistics.allocatedBytes();
                 final List<String> arguments = CommandParser.getArguments(input, command);
                 if (command.getNumberOfArguments() > 0) {
                     command.setArguments(arguments);
                 }
                 command.setSession(this);
+                final CommandEvent event = new CommandEvent(command.getName());
+                final long traceStart = Tracer.now();
+                event.begin();
                 command.execute();
+                event.commit();
+                Tracer.complete("command", command.getName(), traceStart);
+                if (statistics != null) {
+                    statistics.record(command.getName(), System.nanoTime() - start,
+                            statistics.allocatedBytes() - allocated);
+                }
+            } catch (InvalidInputException e) {
+                Terminal.printError(e.getMessage());
+            }
+            // The output of a command must be visible before the next input is read
+            if (output != null) {
+                output.flush();
+            }
+        }
+        stopBackgroundStep();
+        if (statistics != null) {
+            try {
+                statistics.dump();
             } catch (InvalidInputException e) {
                 Terminal.printError(e.getMessage());
             }
         }
+        try {
+            Tracer.stop();
+        } catch (IOException e) {
+            Terminal.printError("cannot write trace file");
+        }
+    }
+
+    /**
+     * Starts to let all trains move {@code speed}-units on a background thread. Until the step has finished, only
+     * commands that do not access the register can be executed. Its result is shown before the next command.
+     *
+     * @param speed to move all trains by
+     * @throws LogicException if another step is still running in the background
+     */
+    public void startBackgroundStep(long speed) throws LogicException {
+        if (backgroundStep != null) {
+            throw new LogicException("a step is already running in the background");
+        }
+        if (stepExecutor == null) {
+            // A daemon thread never keeps the program alive after the session has ended
+            stepExecutor = Executors.newSingleThreadExecutor(task -> {
+                Thread thread = new Thread(task, "background-step");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        backgroundStep = new BackgroundStep(register, speed, stepExecutor);
+    }
+
+    /**
+     * Gets the step that runs in the background.
+     *
+     * @return the step or <code>null</code> if there is none
+     */
+    public BackgroundStep getBackgroundStep() {
+        return backgroundStep;
+    }
+
+    /**
+     * Cancels the step that runs in the background and waits until it has stopped at the next tick.
+     *
+     * @return the crashes and the positions of the trains after the last completed tick
+     * @throws LogicException if there is no step running in the background or moving the trains has failed
+     */
+    public StepResult cancelBackgroundStep() throws LogicException {
+        if (backgroundStep == null) {
+            throw new LogicException("no step is running in the background");
+        }
+        backgroundStep.getProgress().cancel();
+        try {
+            return backgroundStep.await();
+        } finally {
+            backgroundStep = null;
+        }
+    }
+
+    /**
+     * Shows the result of the step that has run in the background if it has finished in the meantime.
+     */
+    private void reportBackgroundStep() {
+        if (backgroundStep == null || !backgroundStep.isDone()) {
+            return;
+        }
+        try {
+            backgroundStep.await().format().forEach(Terminal::printLine);
+        } catch (LogicException e) {
+            Terminal.printError(e.getMessage());
+        } finally {
+            backgroundStep = null;
+        }
+    }
+
+    /**
+     * Cancels a step that still runs in the background without showing its result and stops the background thread.
+     */
+    private void stopBackgroundStep() {
+        if (backgroundStep != null) {
+            try {
+                cancelBackgroundStep();
+            } catch (LogicException e) {
+                // The session ends, so the result of the step is not of interest anymore
+            }
+        }
+        if (stepExecutor != null) {
+            stepExecutor.shutdown();
+        }
     }
 
     /**
@@ -52,6 +215,15 @@ public class Session {
         running = false;
     }
 
+    /**
+     * Gets the statistics of all executed commands.
+     *
+     * @return the statistics or <code>null</code> if they are not recorded
+     */
+    public CommandStatistics getStatistics() {
+        return statistics;
+    }
+
     /**
      * Gets the register of the session.
      *
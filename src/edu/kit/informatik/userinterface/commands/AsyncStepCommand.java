@@ -0,0 +1,65 @@
+package edu.kit.informatik.userinterface.commands;
+
+import edu.kit.informatik.Terminal;
+import edu.kit.informatik.exception.InvalidInputException;
+import edu.kit.informatik.exception.LogicException;
+import edu.kit.informatik.userinterface.InOutput;
+import edu.kit.informatik.userinterface.Session;
+
+import java.util.List;
+
+/**
+ * {@link Command} to let all trains drive by n-units in the background. The result is shown before the first
+ * command that is entered after the step has finished.
+ * Call {@link this#setArguments(List)} before calling {@link this#execute()}.
+ *
+ * @author Lukas Probst
+ * @version 1.0
+ */
+public class AsyncStepCommand extends Command {
+    private Session session;
+    private long speed;
+
+    /**
+     * Package private to avoid direct initialisation without using the {@link CommandParser}.
+     */
+    AsyncStepCommand() {
+    }
+
+    @Override
+    public void execute() {
+        try {
+            session.startBackgroundStep(speed);
+            Terminal.printLine(InOutput.OK_MESSAGE);
+        } catch (LogicException e) {
+            Terminal.printError(e.getMessage());
+        }
+    }
+
+    // The step is run by the session, which owns the background thread
+    @Override
+    public void setSession(final Session session) {
+        super.setSession(session);
+        this.session = session;
+    }
+
+    @Override
+    public void setArguments(List<String> arguments) throws InvalidInputException {
+        speed = InOutput.parseSpeed(arguments.get(0));
+    }
+
+    @Override
+    public String getName() {
+        return "async step";
+    }
+
+    @Override
+    public int getNumberOfArguments() {
+        return 1;
+    }
+
+    @Override
+    public String getCommandDescription() {
+        return "async step <speed>";
+    }
+}
@@ -0,0 +1,85 @@
+package edu.kit.informatik.userinterface.commands;
+
+import edu.kit.informatik.Terminal;
+import edu.kit.informatik.exception.InvalidInputException;
+import edu.kit.informatik.exception.LogicException;
+import edu.kit.informatik.railway.Timetable;
+import edu.kit.informatik.userinterface.InOutput;
+import edu.kit.informatik.userinterface.Session;
+
+import java.util.List;
+
+/**
+ * {@link Command} to schedule another command for a future tick. The command is carried out by the next steps
+ * as soon as the given number of ticks has passed, before the trains move on. Only commands that change the
+ * register and can be carried out while the trains move can be scheduled, i.e. setting a switch, putting a train
+ * on tracks and setting the speed of a train.
+ * Call {@link this#setArguments(List)} before calling {@link this#execute()}.
+ *
+ * @author Lukas Probst
+ * @version 1.0
+ */
+public class AtCommand extends Command {
+    private long tick;
+    private String input;
+    private Command command;
+
+    /**
+     * Package private to avoid direct initialisation without using the {@link CommandParser}.
+     */
+    AtCommand() {
+    }
+
+    @Override
+    public void execute() {
+        try {
+            register.schedule(tick, input, command.toAction());
+            Terminal.printLine(InOutput.OK_MESSAGE);
+        } catch (LogicException e) {
+            Terminal.printError(e.getMessage());
+        }
+    }
+
+    // The scheduled command needs the session as well
+    @Override
+    public void setSession(final Session session) {
+        super.setSession(session);
+        command.setSession(session);
+    }
+
+    @Override
+    public void setArguments(List<String> arguments) throws InvalidInputException {
+        try {
+            tick = Long.parseLong(arguments.get(0));
+        } catch (NumberFormatException e) {
+            throw new InvalidInputException("tick has to be a 64-bit integer");
+        }
+        input = arguments.get(1);
+        command = CommandParser.findCommand(input);
+        command.setArguments(CommandParser.getArguments(input, command));
+        // Check before the command is scheduled and not when it is carried out
+        if (command.toAction() == null) {
+            throw new InvalidInputException("the command '" + command.getName() + "' cannot be scheduled");
+        }
+    }
+
+    @Override
+    public boolean hasTrailingInput() {
+        return true;
+    }
+
+    @Override
+    public String getName() {
+        return "at";
+    }
+
+    @Override
+    public int getNumberOfArguments() {
+        return 2;
+    }
+
+    @Override
+    public String getCommandDescription() {
+        return "at <tick> <command>";
+    }
+}
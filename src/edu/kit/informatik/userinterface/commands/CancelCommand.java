@@ -0,0 +1,65 @@
+package edu.kit.informatik.userinterface.commands;
+
+import edu.kit.informatik.Terminal;
+import edu.kit.informatik.exception.LogicException;
+import edu.kit.informatik.railway.StepProgress;
+import edu.kit.informatik.railway.StepResult;
+import edu.kit.informatik.userinterface.BackgroundStep;
+import edu.kit.informatik.userinterface.Session;
+
+/**
+ * {@link Command} to stop the step that runs in the background at the next tick. All trains keep the positions
+ * they have reached, which are shown afterwards.
+ *
+ * @author Lukas Probst
+ * @version 1.0
+ */
+public class CancelCommand extends Command {
+    private Session session;
+
+    /**
+     * Package private to avoid direct initialisation without using the {@link CommandParser}.
+     */
+    CancelCommand() {
+    }
+
+    @Override
+    public void execute() {
+        try {
+            BackgroundStep step = session.getBackgroundStep();
+            StepResult result = session.cancelBackgroundStep();
+            StepProgress progress = step.getProgress();
+            Terminal.printLine("Cancelled after " + progress.getTicks() + " of " + progress.getTotalTicks()
+                    + " ticks");
+            result.format().forEach(Terminal::printLine);
+        } catch (LogicException e) {
+            Terminal.printError(e.getMessage());
+        }
+    }
+
+    // The background step belongs to the session and not to the register
+    @Override
+    public void setSession(final Session session) {
+        this.session = session;
+    }
+
+    @Override
+    public boolean isAllowedDuringBackgroundStep() {
+        return true;
+    }
+
+    @Override
+    public String getName() {
+        return "cancel";
+    }
+
+    @Override
+    public int getNumberOfArguments() {
+        return 0;
+    }
+
+    @Override
+    public String getCommandDescription() {
+        return "cancel";
+    }
+}
@@ -0,0 +1,58 @@
+package edu.kit.informatik.userinterface.commands;
+
+import edu.kit.informatik.Terminal;
+import edu.kit.informatik.exception.InvalidInputException;
+import edu.kit.informatik.exception.LogicException;
+
+import java.util.List;
+
+/**
+ * {@link Command} to undo or redo all changes of the register until the given version is reached.
+ * Call {@link this#setArguments(List)} before calling {@link this#execute()}.
+ *
+ * @author Lukas Probst
+ * @version 1.0
+ */
+public class CheckoutCommand extends Command {
+    private int version;
+
+    /**
+     * Package private to avoid direct initialisation without using the {@link CommandParser}.
+     */
+    CheckoutCommand() {
+    }
+
+    @Override
+    public void execute() {
+        try {
+            register.checkout(version);
+            Terminal.printLine("Version " + register.getVersion());
+        } catch (LogicException e) {
+            Terminal.printError(e.getMessage());
+        }
+    }
+
+    @Override
+    public void setArguments(List<String> arguments) throws InvalidInputException {
+        try {
+            version = Integer.parseInt(arguments.get(0));
+        } catch (NumberFormatException e) {
+            throw new InvalidInputException("version must be a 32-bit integer");
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "checkout";
+    }
+
+    @Override
+    public int getNumberOfArguments() {
+        return 1;
+    }
+
+    @Override
+    public String getCommandDescription() {
+        return "checkout <version>";
+    }
+}
@@ -1,6 +1,7 @@
 package edu.kit.informatik.userinterface.commands;
 
 import edu.kit.informatik.railway.Register;
+import edu.kit.informatik.railway.Timetable;
 import edu.kit.informatik.exception.InvalidInputException;
 import edu.kit.informatik.userinterface.Session;
 
@@ -45,6 +46,36 @@ public abstract class Command {
     public void setArguments(List<String> arguments) throws InvalidInputException {
     }
 
+    /**
+     * Checks whether the last argument of the command is the rest of the input, which may contain separators.
+     * This is the case for commands that contain another command.
+     *
+     * @return <code>true</code> if the last argument is the rest of the input, otherwise <code>false</code>
+     */
+    public boolean hasTrailingInput() {
+        return false;
+    }
+
+    /**
+     * Gets the operation of the register that the command carries out, so it can be scheduled for a future tick.
+     * Call {@link #setSession(Session)} and {@link #setArguments(List)} before.
+     *
+     * @return the operation or <code>null</code> if the command cannot be scheduled
+     */
+    public Timetable.Action toAction() {
+        return null;
+    }
+
+    /**
+     * Checks whether the command may run while a step runs in the background, which is only the case if it does
+     * not access the register.
+     *
+     * @return <code>true</code> if the command may run during a background step, otherwise <code>false</code>
+     */
+    public boolean isAllowedDuringBackgroundStep() {
+        return false;
+    }
+
     /**
      * Gets the name of the command.
      *
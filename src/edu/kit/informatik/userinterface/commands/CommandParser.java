@@ -3,6 +3,7 @@ package edu.kit.informatik.userinterface.commands;
 import edu.kit.informatik.exception.InvalidInputException;
 import edu.kit.informatik.userinterface.InOutput;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -27,11 +28,30 @@ public final class CommandParser {
      */
     public static List<Command> initialiseCommands() {
         return Arrays.asList(new AddTrackCommand(), new AddSwitchCommand(), new DeleteTrackCommand(),
-                new ListTracksCommand(), new SetSwitchCommand(), new CreateEngineCommand(),
-                new ListEnginesCommand(), new CreateCoachCommand(), new ListCoachesCommand(),
-                new CreateTrainSetCommand(), new ListTrainSetsCommand(), new DeleteRollingStockCommand(),
-                new AddTrainCommand(), new DeleteTrainCommand(), new ListTrainsCommand(),
-                new ShowTrainCommand(), new PutTrainCommand(), new StepCommand(), new ExitCommand());
+                new ListTracksCommand(), new ListUnsetSwitchesCommand(), new SetSwitchCommand(),
+                new SetSpeedCommand(), new InterlockingCommand(), new RouteCommand(), new LoadLayoutCommand(),
+                new SaveLayoutCommand(), new CreateEngineCommand(), new ListEnginesCommand(),
+                new CreateCoachCommand(), new ListCoachesCommand(), new CreateTrainSetCommand(),
+                new ListTrainSetsCommand(), new DeleteRollingStockCommand(), new AddTrainCommand(),
+                new DeleteTrainCommand(), new ListTrainsCommand(), new ShowTrainCommand(), new ShowMapCommand(),
+                new ShowCarCommand(), new PutTrainCommand(), new StepCommand(), new AsyncStepCommand(),
+                new AtCommand(), new SweepCommand(), new UndoCommand(), new RedoCommand(), new CheckoutCommand(),
+                new ProgressCommand(), new CancelCommand(), new StatsCommand(), new ExitCommand());
+    }
+
+    /**
+     * Finds the command whose name the user input starts with, followed by a separator or the end of the input.
+     *
+     * @param input is the user input
+     * @return a new instance of the {@link Command} the input is meant for
+     * @throws InvalidInputException if there is no such command
+     */
+    public static Command findCommand(final String input) throws InvalidInputException {
+        return initialiseCommands().stream()
+                .filter(cmd -> (input.startsWith(cmd.getName()) && (input.length() == cmd.getName().length()
+                        || input.charAt(cmd.getName().length()) == ' ')))
+                .findAny()
+                .orElseThrow(() -> new InvalidInputException("unknown command"));
     }
 
     /**
@@ -45,11 +65,21 @@ public final class CommandParser {
      */
     public static List<String> getArguments(final String input, final Command command)
             throws InvalidInputException {
-        int commandCount = command.getName().split(InOutput.COMMAND_SEPARATOR).length;
-        final List<String> inputSplit = Arrays.asList(input.split(InOutput.COMMAND_SEPARATOR));
-        final List<String> arguments = inputSplit.subList(commandCount, inputSplit.size());
-        if (arguments.size() != command.getNumberOfArguments()
-                || input.substring(input.length() - 1).equals(InOutput.COMMAND_SEPARATOR)) {
+        final List<String> arguments = new ArrayList<>(command.getNumberOfArguments());
+        // The session only selects commands whose name is followed by a separator or the end of the input
+        int from = command.getName().length() + InOutput.COMMAND_SEPARATOR.length();
+        while (from <= input.length() && arguments.size() <= command.getNumberOfArguments()) {
+            if (command.hasTrailingInput() && arguments.size() == command.getNumberOfArguments() - 1) {
+                // The last argument is the rest of the input including separators
+                arguments.add(input.substring(from));
+                break;
+            }
+            int to = input.indexOf(InOutput.COMMAND_SEPARATOR, from);
+            to = to < 0 ? input.length() : to;
+            arguments.add(input.substring(from, to));
+            from = to + InOutput.COMMAND_SEPARATOR.length();
+        }
+        if (arguments.size() != command.getNumberOfArguments() || input.endsWith(InOutput.COMMAND_SEPARATOR)) {
             throw new InvalidInputException("invalid number of arguments. Expected " + command.getNumberOfArguments()
                     + " arguments of the form '" + command.getCommandDescription() + "'");
         }
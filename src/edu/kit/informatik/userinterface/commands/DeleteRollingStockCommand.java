@@ -46,21 +46,21 @@ public class DeleteRollingStockCommand extends Command {
         if (id.contains("-")) {
             for (Engine engine : engines) {
                 if (engine.getId().equals(id)) {
-                    engines.remove(engine);
+                    register.deleteRollingStock(engine);
                     Terminal.printLine(InOutput.OK_MESSAGE);
                     return;
                 }
             }
             for (TrainSet trainSet : trainSets) {
                 if (trainSet.getId().equals(id)) {
-                    trainSets.remove(trainSet);
+                    register.deleteRollingStock(trainSet);
                     Terminal.printLine(InOutput.OK_MESSAGE);
                     return;
                 }
             }
         } else {
             if (coaches.containsKey(coachId)) {
-                coaches.remove(coachId);
+                register.deleteRollingStock(coaches.get(coachId));
                 Terminal.printLine(InOutput.OK_MESSAGE);
                 return;
             }
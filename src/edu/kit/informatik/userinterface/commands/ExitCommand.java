@@ -29,6 +29,11 @@ public class ExitCommand extends Command {
         this.session = session;
     }
 
+    @Override
+    public boolean isAllowedDuringBackgroundStep() {
+        return true;
+    }
+
     @Override
     public String getName() {
         return "exit";
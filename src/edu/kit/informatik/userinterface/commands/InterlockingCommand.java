@@ -0,0 +1,71 @@
+package edu.kit.informatik.userinterface.commands;
+
+import edu.kit.informatik.Terminal;
+import edu.kit.informatik.exception.InvalidInputException;
+import edu.kit.informatik.exception.LogicException;
+import edu.kit.informatik.railway.TrainManager;
+import edu.kit.informatik.userinterface.InOutput;
+
+import java.util.List;
+
+/**
+ * {@link Command} to turn the interlocking on with the given braking horizon or to turn it off.
+ * Call {@link this#setArguments(List)} before calling {@link this#execute()}.
+ *
+ * @author Lukas Probst
+ * @version 1.0
+ */
+public class InterlockingCommand extends Command {
+    /**
+     * Argument that turns the interlocking off.
+     */
+    private static final String OFF = "off";
+    private long horizon;
+
+    /**
+     * Package private to avoid direct initialisation without using the {@link CommandParser}.
+     */
+    InterlockingCommand() {
+    }
+
+    @Override
+    public void execute() {
+        try {
+            register.setInterlocking(horizon);
+            Terminal.printLine(InOutput.OK_MESSAGE);
+        } catch (LogicException e) {
+            Terminal.printError(e.getMessage());
+        }
+    }
+
+    @Override
+    public void setArguments(List<String> arguments) throws InvalidInputException {
+        if (arguments.get(0).equals(OFF)) {
+            horizon = TrainManager.NO_INTERLOCKING;
+            return;
+        }
+        try {
+            horizon = Long.parseLong(arguments.get(0));
+        } catch (NumberFormatException e) {
+            throw new InvalidInputException("horizon has to be a 64-bit integer or " + OFF);
+        }
+        if (horizon < 0) {
+            throw new InvalidInputException("horizon must not be negative");
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "interlocking";
+    }
+
+    @Override
+    public int getNumberOfArguments() {
+        return 1;
+    }
+
+    @Override
+    public String getCommandDescription() {
+        return "interlocking <horizon|off>";
+    }
+}
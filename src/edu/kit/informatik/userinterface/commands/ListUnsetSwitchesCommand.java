@@ -0,0 +1,47 @@
+package edu.kit.informatik.userinterface.commands;
+
+import edu.kit.informatik.Terminal;
+
+import java.util.SortedSet;
+
+/**
+ * {@link Command} to list all switches whose position has not been set yet.
+ *
+ * @author Lukas Probst
+ * @version 1.0
+ */
+public class ListUnsetSwitchesCommand extends Command {
+
+    /**
+     * Package private to avoid direct initialisation without using the {@link CommandParser}.
+     */
+    ListUnsetSwitchesCommand() {
+    }
+
+    @Override
+    public void execute() {
+        SortedSet<Integer> unsetSwitches = register.getNetwork().getUnsetSwitches();
+        if (unsetSwitches.isEmpty()) {
+            Terminal.printLine("No unset switch exists");
+            return;
+        }
+        for (int trackId : unsetSwitches) {
+            Terminal.printLine(register.getNetwork().getTracks().get(trackId).toString());
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "list unset switches";
+    }
+
+    @Override
+    public int getNumberOfArguments() {
+        return 0;
+    }
+
+    @Override
+    public String getCommandDescription() {
+        return "list unset switches";
+    }
+}
@@ -0,0 +1,57 @@
+package edu.kit.informatik.userinterface.commands;
+
+import edu.kit.informatik.Terminal;
+import edu.kit.informatik.exception.InvalidInputException;
+import edu.kit.informatik.exception.LogicException;
+import edu.kit.informatik.railway.Track;
+import edu.kit.informatik.userinterface.LayoutFile;
+
+import java.util.List;
+
+/**
+ * {@link Command} to load a whole rail network layout from a file.
+ * Call {@link this#setArguments(List)} before calling {@link this#execute()}.
+ *
+ * @author Lukas Probst
+ * @version 1.0
+ */
+public class LoadLayoutCommand extends Command {
+    private String path;
+
+    /**
+     * Package private to avoid direct initialisation without using the {@link CommandParser}.
+     */
+    LoadLayoutCommand() {
+    }
+
+    @Override
+    public void execute() {
+        try {
+            List<Track> layout = LayoutFile.read(path);
+            register.loadLayout(layout);
+            Terminal.printLine(layout.size());
+        } catch (InvalidInputException | LogicException e) {
+            Terminal.printError(e.getMessage());
+        }
+    }
+
+    @Override
+    public void setArguments(List<String> arguments) {
+        path = arguments.get(0);
+    }
+
+    @Override
+    public String getName() {
+        return "load layout";
+    }
+
+    @Override
+    public int getNumberOfArguments() {
+        return 1;
+    }
+
+    @Override
+    public String getCommandDescription() {
+        return "load layout <path>";
+    }
+}
@@ -0,0 +1,60 @@
+package edu.kit.informatik.userinterface.commands;
+
+import edu.kit.informatik.Terminal;
+import edu.kit.informatik.railway.StepProgress;
+import edu.kit.informatik.userinterface.BackgroundStep;
+import edu.kit.informatik.userinterface.Session;
+
+/**
+ * {@link Command} to show the completed ticks and the crashes so far of the step that runs in the background.
+ *
+ * @author Lukas Probst
+ * @version 1.0
+ */
+public class ProgressCommand extends Command {
+    private Session session;
+
+    /**
+     * Package private to avoid direct initialisation without using the {@link CommandParser}.
+     */
+    ProgressCommand() {
+    }
+
+    @Override
+    public void execute() {
+        BackgroundStep step = session.getBackgroundStep();
+        if (step == null) {
+            Terminal.printError("no step is running in the background");
+            return;
+        }
+        StepProgress progress = step.getProgress();
+        Terminal.printLine("Tick " + progress.getTicks() + " of " + progress.getTotalTicks() + ", "
+                + progress.getCrashes() + " crashes so far");
+    }
+
+    // The background step belongs to the session and not to the register
+    @Override
+    public void setSession(final Session session) {
+        this.session = session;
+    }
+
+    @Override
+    public boolean isAllowedDuringBackgroundStep() {
+        return true;
+    }
+
+    @Override
+    public String getName() {
+        return "progress";
+    }
+
+    @Override
+    public int getNumberOfArguments() {
+        return 0;
+    }
+
+    @Override
+    public String getCommandDescription() {
+        return "progress";
+    }
+}
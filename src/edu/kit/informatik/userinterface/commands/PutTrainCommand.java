@@ -2,6 +2,7 @@ package edu.kit.informatik.userinterface.commands;
 
 import edu.kit.informatik.Terminal;
 import edu.kit.informatik.exception.LogicException;
+import edu.kit.informatik.railway.Timetable;
 import edu.kit.informatik.userinterface.InOutput;
 import edu.kit.informatik.exception.InvalidInputException;
 import edu.kit.informatik.util.Point;
@@ -53,6 +54,11 @@ public class PutTrainCommand extends Command {
         directionVector = InOutput.parseVector(arguments.get(5));
     }
 
+    @Override
+    public Timetable.Action toAction() {
+        return () -> register.putTrain(trainId, point, directionVector);
+    }
+
     @Override
     public String getName() {
         return "put train";
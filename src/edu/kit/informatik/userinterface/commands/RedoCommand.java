@@ -0,0 +1,44 @@
+package edu.kit.informatik.userinterface.commands;
+
+import edu.kit.informatik.Terminal;
+import edu.kit.informatik.exception.LogicException;
+
+/**
+ * {@link Command} to redo the last undone change of the register and show the resulting version.
+ *
+ * @author Lukas Probst
+ * @version 1.0
+ */
+public class RedoCommand extends Command {
+
+    /**
+     * Package private to avoid direct initialisation without using the {@link CommandParser}.
+     */
+    RedoCommand() {
+    }
+
+    @Override
+    public void execute() {
+        try {
+            register.redo();
+            Terminal.printLine("Version " + register.getVersion());
+        } catch (LogicException e) {
+            Terminal.printError(e.getMessage());
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "redo";
+    }
+
+    @Override
+    public int getNumberOfArguments() {
+        return 0;
+    }
+
+    @Override
+    public String getCommandDescription() {
+        return "redo";
+    }
+}
@@ -0,0 +1,71 @@
+package edu.kit.informatik.userinterface.commands;
+
+import edu.kit.informatik.Terminal;
+import edu.kit.informatik.exception.InvalidInputException;
+import edu.kit.informatik.exception.LogicException;
+import edu.kit.informatik.railway.Route;
+import edu.kit.informatik.railway.Track;
+import edu.kit.informatik.userinterface.InOutput;
+import edu.kit.informatik.util.Point;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * {@link Command} to find the shortest route between two points and the required switch positions.
+ * Call {@link this#setArguments(List)} before calling {@link this#execute()}.
+ *
+ * @author Lukas Probst
+ * @version 1.0
+ */
+public class RouteCommand extends Command {
+    private Point startPoint;
+    private Point endPoint;
+
+    /**
+     * Package private to avoid direct initialisation without using the {@link CommandParser}.
+     */
+    RouteCommand() {
+    }
+
+    @Override
+    public void execute() {
+        try {
+            Route route = register.getNetwork().route(startPoint, endPoint);
+            Terminal.printLine("Route of length " + route.getLength() + " via tracks " + route.getTracks().stream()
+                    .map(Track::getId)
+                    .map(String::valueOf)
+                    .collect(Collectors.joining(",")));
+            for (Map.Entry<Integer, Point> position : route.getSwitchPositions().entrySet()) {
+                Terminal.printLine("set switch " + position.getKey() + " position " + position.getValue());
+            }
+        } catch (LogicException e) {
+            Terminal.printError(e.getMessage());
+        }
+    }
+
+    @Override
+    public void setArguments(List<String> arguments) throws InvalidInputException {
+        startPoint = InOutput.parsePoint(arguments.get(0));
+        if (!InOutput.ARROW_SEPARATOR.equals(arguments.get(1))) {
+            throw new InvalidInputException("second argument must be '->'. Instead you typed: " + arguments.get(1));
+        }
+        endPoint = InOutput.parsePoint(arguments.get(2));
+    }
+
+    @Override
+    public String getName() {
+        return "route";
+    }
+
+    @Override
+    public int getNumberOfArguments() {
+        return 3;
+    }
+
+    @Override
+    public String getCommandDescription() {
+        return "route <startpoint> -> <endpoint>";
+    }
+}
@@ -0,0 +1,75 @@
+package edu.kit.informatik.userinterface.commands;
+
+import edu.kit.informatik.Terminal;
+import edu.kit.informatik.exception.InvalidInputException;
+import edu.kit.informatik.railway.Track;
+import edu.kit.informatik.userinterface.InOutput;
+import edu.kit.informatik.userinterface.LayoutFile;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * {@link Command} to save the layout of the rail network including all switch positions to a file.
+ * Call {@link this#setArguments(List)} before calling {@link this#execute()}.
+ *
+ * @author Lukas Probst
+ * @version 1.0
+ */
+public class SaveLayoutCommand extends Command {
+    private boolean isBinary;
+    private String path;
+
+    /**
+     * Package private to avoid direct initialisation without using the {@link CommandParser}.
+     */
+    SaveLayoutCommand() {
+    }
+
+    @Override
+    public void execute() {
+        Collection<Track> tracks = register.getNetwork().getTracks().values();
+        try {
+            if (isBinary) {
+                LayoutFile.writeBinary(path, tracks);
+            } else {
+                LayoutFile.writeText(path, tracks);
+            }
+            Terminal.printLine(InOutput.OK_MESSAGE);
+        } catch (InvalidInputException e) {
+            Terminal.printError(e.getMessage());
+        }
+    }
+
+    @Override
+    public void setArguments(List<String> arguments) throws InvalidInputException {
+        switch (arguments.get(0)) {
+            case "text": {
+                isBinary = false;
+                break;
+            }
+            case "binary": {
+                isBinary = true;
+                break;
+            }
+            default:
+                throw new InvalidInputException("invalid layout format. Either use 'text' or 'binary'");
+        }
+        path = arguments.get(1);
+    }
+
+    @Override
+    public String getName() {
+        return "save layout";
+    }
+
+    @Override
+    public int getNumberOfArguments() {
+        return 2;
+    }
+
+    @Override
+    public String getCommandDescription() {
+        return "save layout <format> <path>";
+    }
+}
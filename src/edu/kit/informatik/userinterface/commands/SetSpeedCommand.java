@@ -0,0 +1,67 @@
+package edu.kit.informatik.userinterface.commands;
+
+import edu.kit.informatik.Terminal;
+import edu.kit.informatik.exception.InvalidInputException;
+import edu.kit.informatik.exception.LogicException;
+import edu.kit.informatik.railway.Timetable;
+import edu.kit.informatik.userinterface.InOutput;
+
+import java.util.List;
+
+/**
+ * {@link Command} to set the number of units a train moves per tick of a step.
+ * Call {@link this#setArguments(List)} before calling {@link this#execute()}.
+ *
+ * @author Lukas Probst
+ * @version 1.0
+ */
+public class SetSpeedCommand extends Command {
+    private int trainId;
+    private int speed;
+
+    /**
+     * Package private to avoid direct initialisation without using the {@link CommandParser}.
+     */
+    SetSpeedCommand() {
+    }
+
+    @Override
+    public void execute() {
+        try {
+            register.setSpeed(trainId, speed);
+            Terminal.printLine(InOutput.OK_MESSAGE);
+        } catch (LogicException e) {
+            Terminal.printError(e.getMessage());
+        }
+    }
+
+    @Override
+    public void setArguments(List<String> arguments) throws InvalidInputException {
+        trainId = InOutput.parseNumber(arguments.get(0), "train ID");
+        try {
+            speed = Integer.parseInt(arguments.get(1));
+        } catch (NumberFormatException e) {
+            throw new InvalidInputException("speed has to be a 32-bit integer");
+        }
+    }
+
+    @Override
+    public Timetable.Action toAction() {
+        return () -> register.setSpeed(trainId, speed);
+    }
+
+    @Override
+    public String getName() {
+        return "set speed";
+    }
+
+    @Override
+    public int getNumberOfArguments() {
+        return 2;
+    }
+
+    @Override
+    public String getCommandDescription() {
+        return "set speed <trainID> <speed>";
+    }
+}
@@ -2,6 +2,7 @@ package edu.kit.informatik.userinterface.commands;
 
 import edu.kit.informatik.Terminal;
 import edu.kit.informatik.exception.LogicException;
+import edu.kit.informatik.railway.Timetable;
 import edu.kit.informatik.userinterface.InOutput;
 import edu.kit.informatik.exception.InvalidInputException;
 import edu.kit.informatik.util.Point;
@@ -49,6 +50,11 @@ public class SetSwitchCommand extends Command {
         point = InOutput.parsePoint(arguments.get(2));
     }
 
+    @Override
+    public Timetable.Action toAction() {
+        return () -> register.setSwitch(trackId, point);
+    }
+
     @Override
     public String getName() {
         return "set switch";
@@ -0,0 +1,72 @@
+package edu.kit.informatik.userinterface.commands;
+
+import edu.kit.informatik.Terminal;
+import edu.kit.informatik.exception.InvalidInputException;
+import edu.kit.informatik.exception.LogicException;
+import edu.kit.informatik.rollingstock.RollingStock;
+import edu.kit.informatik.userinterface.InOutput;
+import edu.kit.informatik.util.Point;
+
+import java.util.List;
+
+/**
+ * {@link Command} to show the rolling stock of a train at an offset behind its head or over a point.
+ * Call {@link this#setArguments(List)} before calling {@link this#execute()}.
+ *
+ * @author Lukas Probst
+ * @version 1.0
+ */
+public class ShowCarCommand extends Command {
+    private int trainId;
+    private long offset;
+    /**
+     * Point to find the rolling stock over, <code>null</code> if the {@link #offset} is given.
+     */
+    private Point point;
+
+    /**
+     * Package private to avoid direct initialisation without using the {@link CommandParser}.
+     */
+    ShowCarCommand() {
+    }
+
+    @Override
+    public void execute() {
+        try {
+            long carOffset = point == null ? offset : register.getOffset(trainId, point);
+            RollingStock rollingStock = register.getRollingStockAt(trainId, carOffset);
+            Terminal.printLine(rollingStock.getId() + " at offset " + carOffset);
+        } catch (LogicException e) {
+            Terminal.printError(e.getMessage());
+        }
+    }
+
+    @Override
+    public void setArguments(List<String> arguments) throws InvalidInputException {
+        trainId = InOutput.parseNumber(arguments.get(0), "train ID");
+        if (arguments.get(1).startsWith("(")) {
+            point = InOutput.parsePoint(arguments.get(1));
+        } else {
+            try {
+                offset = Long.parseLong(arguments.get(1));
+            } catch (NumberFormatException e) {
+                throw new InvalidInputException("offset has to be a 64-bit integer");
+            }
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "show car";
+    }
+
+    @Override
+    public int getNumberOfArguments() {
+        return 2;
+    }
+
+    @Override
+    public String getCommandDescription() {
+        return "show car <trainID> <offset|point>";
+    }
+}
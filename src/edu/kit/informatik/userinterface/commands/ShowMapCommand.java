@@ -0,0 +1,57 @@
+package edu.kit.informatik.userinterface.commands;
+
+import edu.kit.informatik.Terminal;
+import edu.kit.informatik.exception.InvalidInputException;
+import edu.kit.informatik.exception.LogicException;
+import edu.kit.informatik.userinterface.InOutput;
+import edu.kit.informatik.util.Point;
+
+import java.util.List;
+
+/**
+ * {@link Command} to show the tracks, switches and trains within a viewport as a map of characters.
+ * Call {@link this#setArguments(List)} before calling {@link this#execute()}.
+ *
+ * @author Lukas Probst
+ * @version 1.0
+ */
+public class ShowMapCommand extends Command {
+    private Point corner;
+    private Point opposite;
+
+    /**
+     * Package private to avoid direct initialisation without using the {@link CommandParser}.
+     */
+    ShowMapCommand() {
+    }
+
+    @Override
+    public void execute() {
+        try {
+            register.showMap(corner, opposite).forEach(Terminal::printLine);
+        } catch (LogicException e) {
+            Terminal.printError(e.getMessage());
+        }
+    }
+
+    @Override
+    public void setArguments(List<String> arguments) throws InvalidInputException {
+        corner = InOutput.parsePoint(arguments.get(0));
+        opposite = InOutput.parsePoint(arguments.get(1));
+    }
+
+    @Override
+    public String getName() {
+        return "show map";
+    }
+
+    @Override
+    public int getNumberOfArguments() {
+        return 2;
+    }
+
+    @Override
+    public String getCommandDescription() {
+        return "show map <corner> <opposite corner>";
+    }
+}
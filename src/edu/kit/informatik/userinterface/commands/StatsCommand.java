@@ -0,0 +1,64 @@
+package edu.kit.informatik.userinterface.commands;
+
+import edu.kit.informatik.Terminal;
+import edu.kit.informatik.userinterface.CommandStatistics;
+import edu.kit.informatik.userinterface.Session;
+
+import java.util.List;
+
+/**
+ * {@link Command} to show the latency, the number of calls and the allocated bytes of all executed commands.
+ *
+ * @author Lukas Probst
+ * @version 1.0
+ */
+public class StatsCommand extends Command {
+    private Session session;
+
+    /**
+     * Package private to avoid direct initialisation without using the {@link CommandParser}.
+     */
+    StatsCommand() {
+    }
+
+    @Override
+    public void execute() {
+        CommandStatistics statistics = session.getStatistics();
+        if (statistics == null) {
+            Terminal.printError("statistics are not enabled");
+            return;
+        }
+        List<String> lines = statistics.format();
+        if (lines.isEmpty()) {
+            Terminal.printLine("No command has been executed");
+            return;
+        }
+        lines.forEach(Terminal::printLine);
+    }
+
+    // The statistics belong to the session and not to the register
+    @Override
+    public void setSession(final Session session) {
+        this.session = session;
+    }
+
+    @Override
+    public boolean isAllowedDuringBackgroundStep() {
+        return true;
+    }
+
+    @Override
+    public String getName() {
+        return "stats";
+    }
+
+    @Override
+    public int getNumberOfArguments() {
+        return 0;
+    }
+
+    @Override
+    public String getCommandDescription() {
+        return "stats";
+    }
+}
@@ -1,7 +1,9 @@
 package edu.kit.informatik.userinterface.commands;
 
 import edu.kit.informatik.Terminal;
+import edu.kit.informatik.exception.InvalidInputException;
 import edu.kit.informatik.exception.LogicException;
+import edu.kit.informatik.userinterface.InOutput;
 
 import java.util.List;
 
@@ -13,7 +15,7 @@ import java.util.List;
  * @version 1.0
  */
 public class StepCommand extends Command {
-    private short speed;
+    private long speed;
 
     /**
      * Package private to avoid direct initialisation without using the {@link CommandParser}.
@@ -33,9 +35,9 @@ public class StepCommand extends Command {
     @Override
     public void setArguments(List<String> arguments) {
         try {
-            speed = Short.parseShort(arguments.get(0));
-        } catch (NumberFormatException e) {
-            Terminal.printError("speed has to be a 16-bit integer");
+            speed = InOutput.parseSpeed(arguments.get(0));
+        } catch (InvalidInputException e) {
+            Terminal.printError(e.getMessage());
         }
     }
 
@@ -0,0 +1,118 @@
+package edu.kit.informatik.userinterface.commands;
+
+import edu.kit.informatik.Terminal;
+import edu.kit.informatik.exception.InvalidInputException;
+import edu.kit.informatik.exception.LogicException;
+import edu.kit.informatik.railway.ScenarioSweep;
+import edu.kit.informatik.railway.Track;
+import edu.kit.informatik.userinterface.InOutput;
+import edu.kit.informatik.util.Point;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.StringJoiner;
+
+/**
+ * {@link Command} to let all trains drive by n-units for every combination of positions of the given switches.
+ * The scenarios run in parallel on forks of the register, so the actual switch positions and trains stay unchanged.
+ * Call {@link this#setArguments(List)} before calling {@link this#execute()}.
+ *
+ * @author Lukas Probst
+ * @version 1.0
+ */
+public class SweepCommand extends Command {
+    /**
+     * Maximum number of switches that can be swept, which limits the number of scenarios to 2^16.
+     */
+    private static final int MAX_SWITCHES = 16;
+    private long speed;
+    private List<Integer> switchIds;
+
+    /**
+     * Package private to avoid direct initialisation without using the {@link CommandParser}.
+     */
+    SweepCommand() {
+    }
+
+    @Override
+    public void execute() {
+        try {
+            List<Track> switches = new ArrayList<>();
+            for (int switchId : switchIds) {
+                Track track = register.getNetwork().getTracks().get(switchId);
+                if (track == null) {
+                    throw new LogicException("track with ID " + switchId + " not existent");
+                }
+                if (!track.isSwitch(track)) {
+                    throw new LogicException("track with ID " + switchId + " is not a switch");
+                }
+                switches.add(track);
+            }
+            List<String> descriptions = new ArrayList<>();
+            List<ScenarioSweep.Scenario> scenarios = new ArrayList<>();
+            for (int combination = 0; combination < 1 << switches.size(); combination++) {
+                StringJoiner description = new StringJoiner(", ");
+                List<Point> positions = new ArrayList<>();
+                for (int i = 0; i < switches.size(); i++) {
+                    Point position = switches.get(i).getEndPoints().get(combination >> i & 1);
+                    positions.add(position);
+                    description.add("switch " + switches.get(i).getId() + " position " + position);
+                }
+                descriptions.add(description.toString());
+                scenarios.add(fork -> {
+                    for (int i = 0; i < switches.size(); i++) {
+                        fork.setSwitch(switches.get(i).getId(), positions.get(i));
+                    }
+                });
+            }
+            List<ScenarioSweep.Outcome> outcomes = ScenarioSweep.run(register, scenarios, speed);
+            for (int i = 0; i < outcomes.size(); i++) {
+                Terminal.printLine("Scenario " + (i + 1) + ": " + descriptions.get(i));
+                ScenarioSweep.Outcome outcome = outcomes.get(i);
+                if (outcome.getError() != null) {
+                    Terminal.printError(outcome.getError());
+                } else {
+                    outcome.getResult().format().forEach(Terminal::printLine);
+                }
+            }
+        } catch (LogicException e) {
+            Terminal.printError(e.getMessage());
+        }
+    }
+
+    @Override
+    public void setArguments(List<String> arguments) throws InvalidInputException {
+        speed = InOutput.parseSpeed(arguments.get(0));
+        Set<Integer> ids = new LinkedHashSet<>();
+        for (String id : arguments.get(1).split(",", -1)) {
+            try {
+                if (!ids.add(Integer.parseInt(id))) {
+                    throw new InvalidInputException("switch " + id + " must only be swept once");
+                }
+            } catch (NumberFormatException e) {
+                throw new InvalidInputException("switch IDs must be 32-bit integers");
+            }
+        }
+        if (ids.size() > MAX_SWITCHES) {
+            throw new InvalidInputException("at most " + MAX_SWITCHES + " switches can be swept at once");
+        }
+        switchIds = new ArrayList<>(ids);
+    }
+
+    @Override
+    public String getName() {
+        return "sweep";
+    }
+
+    @Override
+    public int getNumberOfArguments() {
+        return 2;
+    }
+
+    @Override
+    public String getCommandDescription() {
+        return "sweep <speed> <switchID>[,<switchID>...]";
+    }
+}
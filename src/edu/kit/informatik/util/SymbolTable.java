@@ -0,0 +1,45 @@
+package edu.kit.informatik.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Interns strings such as series and names into integer handles. Equal strings always get the same handle, so
+ * interned strings can be compared by their handles instead of character by character. Handles are never released.
+ *
+ * @author Lukas Probst
+ * @version 1.0
+ */
+public final class SymbolTable {
+    /**
+     * Handle of a string that has not been interned.
+     */
+    public static final int NONE = -1;
+    private static final Map<String, Integer> SYMBOLS = new HashMap<>();
+
+    /**
+     * This utility class is not meant to be instantiated.
+     */
+    private SymbolTable() {
+    }
+
+    /**
+     * Gets the handle of the {@code symbol} and interns it first, if it has not been interned yet.
+     *
+     * @param symbol to be interned
+     * @return the handle of the symbol
+     */
+    public static synchronized int intern(String symbol) {
+        return SYMBOLS.computeIfAbsent(symbol, key -> SYMBOLS.size());
+    }
+
+    /**
+     * Gets the handle of the {@code symbol} without interning it.
+     *
+     * @param symbol to be found
+     * @return the handle of the symbol or {@link #NONE} if it has not been interned
+     */
+    public static synchronized int find(String symbol) {
+        return SYMBOLS.getOrDefault(symbol, NONE);
+    }
+}
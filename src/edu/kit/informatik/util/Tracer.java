@@ -0,0 +1,255 @@
+package edu.kit.informatik.util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Opt-in tracer that writes complete events in the Chrome trace-event format, which can be opened in
+ * Perfetto or <code>chrome://tracing</code>. Recording a slice only claims a slot of a lock-free ring buffer,
+ * the JSON is written by a background thread. If the buffer is full, slices are dropped instead of blocking.
+ * While no tracer is started, recording a slice costs a single volatile read.
+ *
+ * @author Lukas Probst
+ * @version 1.0
+ */
+public final class Tracer {
+    /**
+     * Number of slices the ring buffer can hold. Must be a power of two.
+     */
+    private static final int CAPACITY = 1 << 16;
+    /**
+     * Time the background writer waits if the ring buffer is empty.
+     */
+    private static final long DRAIN_INTERVAL = TimeUnit.MILLISECONDS.toNanos(10);
+    private static volatile Tracer active;
+    private final String[] categories = new String[CAPACITY];
+    private final String[] names = new String[CAPACITY];
+    private final long[] starts = new long[CAPACITY];
+    private final long[] durations = new long[CAPACITY];
+    private final long[] threadIds = new long[CAPACITY];
+    /**
+     * Stores for every slot the sequence number + 1 of the slice that has been completely written to it.
+     */
+    private final AtomicLongArray published = new AtomicLongArray(CAPACITY);
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final long origin = System.nanoTime();
+    private final Writer writer;
+    private final Thread drainer;
+    private volatile boolean running = true;
+    private boolean isFirstEvent = true;
+
+    /**
+     * Creates a new tracer that writes to the given {@code writer}.
+     *
+     * @param writer to write the trace events to
+     */
+    private Tracer(Writer writer) {
+        this.writer = writer;
+        this.drainer = new Thread(this::drainContinuously, "trace-writer");
+        this.drainer.setDaemon(true);
+    }
+
+    /**
+     * Starts tracing to the file with the given {@code path}. A previously started tracer is stopped first.
+     *
+     * @param path of the trace file
+     * @throws IOException if the trace file cannot be created
+     */
+    public static synchronized void start(String path) throws IOException {
+        stop();
+        Tracer tracer = new Tracer(Files.newBufferedWriter(Paths.get(path), StandardCharsets.UTF_8));
+        tracer.writer.write("{\"traceEvents\":[");
+        tracer.drainer.start();
+        active = tracer;
+    }
+
+    /**
+     * Stops tracing, writes all remaining slices and closes the trace file. Nothing happens if no tracer is started.
+     *
+     * @throws IOException if the trace file cannot be written
+     */
+    public static synchronized void stop() throws IOException {
+        Tracer tracer = active;
+        if (tracer == null) {
+            return;
+        }
+        active = null;
+        tracer.running = false;
+        LockSupport.unpark(tracer.drainer);
+        try {
+            tracer.drainer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        tracer.drain();
+        tracer.writer.write("],\"otherData\":{\"droppedEvents\":" + tracer.dropped.get() + "}}");
+        tracer.writer.close();
+    }
+
+    /**
+     * Returns <code>true</code> if a tracer is started.
+     *
+     * @return <code>true</code> if slices are recorded
+     */
+    public static boolean isEnabled() {
+        return active != null;
+    }
+
+    /**
+     * Gets the current time to be passed to {@link #complete(String, String, long)} later on.
+     *
+     * @return the current time in nanoseconds or 0 if no tracer is started
+     */
+    public static long now() {
+        return active == null ? 0 : System.nanoTime();
+    }
+
+    /**
+     * Records a slice that started at {@code start} and ends now.
+     *
+     * @param category of the slice
+     * @param name of the slice
+     * @param start of the slice as returned by {@link #now()}
+     */
+    public static void complete(String category, String name, long start) {
+        Tracer tracer = active;
+        if (tracer != null && start != 0) {
+            tracer.record(category, name, start, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Claims a slot of the ring buffer and publishes the slice.
+     *
+     * @param category of the slice
+     * @param name of the slice
+     * @param start of the slice in nanoseconds
+     * @param duration of the slice in nanoseconds
+     */
+    private void record(String category, String name, long start, long duration) {
+        long sequence;
+        do {
+            sequence = head.get();
+            if (sequence - tail.get() >= CAPACITY) {
+                dropped.incrementAndGet();
+                return;
+            }
+        } while (!head.compareAndSet(sequence, sequence + 1));
+        int slot = (int) sequence & (CAPACITY - 1);
+        categories[slot] = category;
+        names[slot] = name;
+        starts[slot] = start;
+        durations[slot] = duration;
+        threadIds[slot] = Thread.currentThread().getId();
+        published.lazySet(slot, sequence + 1);
+    }
+
+    /**
+     * Drains the ring buffer until the tracer is stopped.
+     */
+    private void drainContinuously() {
+        while (running) {
+            if (!drain()) {
+                LockSupport.parkNanos(this, DRAIN_INTERVAL);
+            }
+        }
+    }
+
+    /**
+     * Writes all published slices to the trace file.
+     *
+     * @return <code>true</code> if at least one slice was written
+     */
+    private boolean drain() {
+        long sequence = tail.get();
+        boolean hasWritten = false;
+        try {
+            while (true) {
+                int slot = (int) sequence & (CAPACITY - 1);
+                if (published.get(slot) != sequence + 1) {
+                    break;
+                }
+                write(categories[slot], names[slot], starts[slot], durations[slot], threadIds[slot]);
+                sequence++;
+                tail.lazySet(sequence);
+                hasWritten = true;
+            }
+            if (hasWritten) {
+                writer.flush();
+            }
+        } catch (IOException e) {
+            // The trace is incomplete, but tracing must never interfere with the simulation
+            running = false;
+        }
+        return hasWritten;
+    }
+
+    /**
+     * Writes one complete event in the trace-event format.
+     *
+     * @param category of the slice
+     * @param name of the slice
+     * @param start of the slice in nanoseconds
+     * @param duration of the slice in nanoseconds
+     * @param threadId of the thread that recorded the slice
+     * @throws IOException if the event cannot be written
+     */
+    private void write(String category, String name, long start, long duration, long threadId) throws IOException {
+        writer.write(isFirstEvent ? "\n{\"name\":\"" : ",\n{\"name\":\"");
+        isFirstEvent = false;
+        writeEscaped(name);
+        writer.write("\",\"cat\":\"");
+        writeEscaped(category);
+        writer.write("\",\"ph\":\"X\",\"ts\":");
+        writeMicros(start - origin);
+        writer.write(",\"dur\":");
+        writeMicros(duration);
+        writer.write(",\"pid\":1,\"tid\":");
+        writer.write(Long.toString(threadId));
+        writer.write('}');
+    }
+
+    /**
+     * Writes nanoseconds as microseconds with three decimal places, as expected by the trace-event format.
+     *
+     * @param nanos to be written
+     * @throws IOException if the value cannot be written
+     */
+    private void writeMicros(long nanos) throws IOException {
+        long fraction = nanos % 1000;
+        writer.write(Long.toString(nanos / 1000));
+        writer.write('.');
+        writer.write((char) ('0' + fraction / 100));
+        writer.write((char) ('0' + fraction / 10 % 10));
+        writer.write((char) ('0' + fraction % 10));
+    }
+
+    /**
+     * Writes a string with all characters escaped that are not allowed in a JSON string.
+     *
+     * @param value to be written
+     * @throws IOException if the value cannot be written
+     */
+    private void writeEscaped(String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            char character = value.charAt(i);
+            if (character == '"' || character == '\\') {
+                writer.write('\\');
+                writer.write(character);
+            } else if (character < ' ') {
+                writer.write(String.format("\\u%04x", (int) character));
+            } else {
+                writer.write(character);
+            }
+        }
+    }
+}